@@ -1,13 +1,64 @@
 #version 450
 
 in vec2 tc;
+in vec3 varyingNormal;
+in vec3 varyingPos;
+flat in int viewIndex;
 out vec4 color;
 
-uniform mat4 mv_matrix;
-uniform mat4 proj_matrix;
 layout (binding=0) uniform sampler2D s;
 
+// Self-lit surfaces (the sun, the axes) skip lighting.
+uniform bool emissive;
+uniform vec3 ambient;
+
+// Clustered point lights: the fragment's screen tile and logarithmic depth slice select the
+// range of the light index list that can affect it. Every view has its own cluster grid, lights
+// in its view space and rectangle of the target; the grids are stored one after another.
+struct PointLight
+{
+	vec4 position_radius;
+	vec4 color_intensity;
+};
+layout (std430, binding=0) readonly buffer LightBuffer { PointLight lights[]; };
+layout (std430, binding=1) readonly buffer ClusterBuffer { uvec2 clusters[]; };
+layout (std430, binding=2) readonly buffer IndexBuffer { uint lightIndices[]; };
+uniform uvec3 cluster_dims;
+const int MAX_VIEWS = 4;
+uniform vec2 cluster_origin[MAX_VIEWS];
+uniform vec2 cluster_screen[MAX_VIEWS];
+uniform float cluster_near;
+uniform float cluster_far;
+
+uint clusterIndex()
+{
+	uvec2 tile = uvec2(clamp((gl_FragCoord.xy - cluster_origin[viewIndex]) / cluster_screen[viewIndex], 0.0, 0.999) * vec2(cluster_dims.xy));
+	float depth = max(-varyingPos.z, cluster_near);
+	uint slice = min(uint(log(depth / cluster_near) / log(cluster_far / cluster_near) * float(cluster_dims.z)), cluster_dims.z - 1u);
+	uint view = uint(viewIndex);
+	return tile.x + cluster_dims.x * (tile.y + cluster_dims.y * (slice + cluster_dims.z * view));
+}
+
 void main(void)
 {
-	color = texture(s,tc);
+	vec4 texel = texture(s,tc);
+	if(emissive)
+	{
+		color = texel;
+		return;
+	}
+	
+	vec3 N = normalize(varyingNormal);
+	vec3 light = ambient;
+	uvec2 cluster = clusters[clusterIndex()];
+	for(uint i = 0u; i < cluster.y; i++)
+	{
+		PointLight l = lights[lightIndices[cluster.x + i]];
+		vec3 toLight = l.position_radius.xyz - varyingPos;
+		float distance = length(toLight);
+		float falloff = clamp(1.0 - pow(distance / l.position_radius.w, 4.0), 0.0, 1.0);
+		float diffuse = max(dot(N, toLight / max(distance, 1e-4)), 0.0);
+		light += l.color_intensity.rgb * l.color_intensity.w * diffuse * falloff * falloff;
+	}
+	color = vec4(texel.rgb * light, texel.a);
 }
\ No newline at end of file
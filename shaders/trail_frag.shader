@@ -0,0 +1,9 @@
+#version 450
+
+in vec4 varyingColor;
+out vec4 color;
+
+void main(void)
+{
+	color = varyingColor;
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+#version 450
+
+out vec4 varyingColor;
+out float gl_ClipDistance[4];
+
+// The same per-view uniforms as the body shader; see vert.shader.
+const int MAX_VIEWS = 4;
+uniform mat4 view_matrix[MAX_VIEWS];
+uniform mat4 proj_matrix[MAX_VIEWS];
+uniform vec4 view_rect[MAX_VIEWS];
+uniform uint visible_views;
+
+// Trail samples live in a ring of trail_length slots, each holding every body's position,
+// so body b's sample in slot i starts at float 3 * (i * trail_bodies + b). Each instance draws
+// one body's trail into one view, its vertices running from the oldest of the trail_count samples
+// to the newest.
+layout (std430, binding=3) readonly buffer TrailPositions { float trailPositions[]; };
+layout (std430, binding=4) readonly buffer TrailColors { vec4 trailColors[]; };
+uniform int trail_length;
+uniform int trail_oldest;
+uniform int trail_count;
+uniform int trail_bodies;
+
+int visibleView(int n)
+{
+	uint views = visible_views;
+	for(int i = 0; i < n; i++)
+	{
+		views &= views - 1u;
+	}
+	return findLSB(views);
+}
+
+vec4 toViewRect(vec4 clip, int view)
+{
+	gl_ClipDistance[0] = clip.w + clip.x;
+	gl_ClipDistance[1] = clip.w - clip.x;
+	gl_ClipDistance[2] = clip.w + clip.y;
+	gl_ClipDistance[3] = clip.w - clip.y;
+	return vec4(clip.xy * view_rect[view].xy + view_rect[view].zw * clip.w, clip.zw);
+}
+
+void main(void)
+{
+	int body = gl_InstanceID % trail_bodies;
+	int view = visibleView(gl_InstanceID / trail_bodies);
+	int slot = (trail_oldest + gl_VertexID) % trail_length;
+	int index = 3 * (slot * trail_bodies + body);
+	vec3 p = vec3(trailPositions[index], trailPositions[index + 1], trailPositions[index + 2]);
+	gl_Position = toViewRect(proj_matrix[view] * view_matrix[view] * vec4(p,1.0), view);
+	
+	// Fade out towards the oldest sample.
+	vec4 c = trailColors[body];
+	varyingColor = vec4(c.rgb, c.a * float(gl_VertexID + 1) / float(trail_count));
+}
\ No newline at end of file
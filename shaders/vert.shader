@@ -2,14 +2,70 @@
 
 layout (location = 0) in vec3 position;
 layout (location = 1) in vec2 tex_coord;
+layout (location = 2) in vec4 normal;
 out vec2 tc;
+out vec3 varyingNormal;
+out vec3 varyingPos;
+flat out int viewIndex;
+out float gl_ClipDistance[4];
 
-uniform mat4 mv_matrix;
-uniform mat4 proj_matrix;
+uniform mat4 m_matrix;
 layout (binding=0) uniform sampler2D s;
 
-void main(void)
+// Every view is drawn in one pass: each instance draws the mesh into the view given by the
+// instance'th set bit of visible_views, squeezed into the view's rectangle of the target
+// (view_rect holds the scale and offset) and clipped to it.
+const int MAX_VIEWS = 4;
+uniform mat4 view_matrix[MAX_VIEWS];
+uniform mat4 proj_matrix[MAX_VIEWS];
+uniform vec4 view_rect[MAX_VIEWS];
+uniform uint visible_views;
+
+// Compact vertices store positions and texture coordinates normalized to the mesh bounds,
+// and normals octahedral-encoded in normal.xy. Float vertices use a scale of 1 and a bias of 0.
+uniform vec3 pos_scale;
+uniform vec3 pos_bias;
+uniform vec2 tc_scale;
+uniform vec2 tc_bias;
+uniform bool octahedral_normals;
+
+vec3 octDecode(vec2 e)
+{
+	vec3 n = vec3(e, 1.0 - abs(e.x) - abs(e.y));
+	if(n.z < 0.0)
+	{
+		n.xy = (1.0 - abs(n.yx)) * vec2(n.x >= 0.0 ? 1.0 : -1.0, n.y >= 0.0 ? 1.0 : -1.0);
+	}
+	return normalize(n);
+}
+
+int visibleView(int n)
 {
-    gl_Position = proj_matrix * mv_matrix * vec4(position,1.0);
-	tc = tex_coord;
+	uint views = visible_views;
+	for(int i = 0; i < n; i++)
+	{
+		views &= views - 1u;
+	}
+	return findLSB(views);
 }
+
+vec4 toViewRect(vec4 clip, int view)
+{
+	gl_ClipDistance[0] = clip.w + clip.x;
+	gl_ClipDistance[1] = clip.w - clip.x;
+	gl_ClipDistance[2] = clip.w + clip.y;
+	gl_ClipDistance[3] = clip.w - clip.y;
+	return vec4(clip.xy * view_rect[view].xy + view_rect[view].zw * clip.w, clip.zw);
+}
+
+void main(void)
+{
+	vec3 p = position * pos_scale + pos_bias;
+	vec3 n = octahedral_normals ? octDecode(normal.xy) : normal.xyz;
+	viewIndex = visibleView(gl_InstanceID);
+	mat4 mv_matrix = view_matrix[viewIndex] * m_matrix;
+	gl_Position = toViewRect(proj_matrix[viewIndex] * mv_matrix * vec4(p,1.0), viewIndex);
+	tc = tex_coord * tc_scale + tc_bias;
+	varyingNormal = mat3(mv_matrix) * n;
+	varyingPos = (mv_matrix * vec4(p,1.0)).xyz;
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package project2;
+
+import graphicslib3D.Matrix3D;
+
+/**
+ * A mesh placed in the world: its uploaded buffers, its texture, how it is shaded and where the simulation put it this
+ * frame. Meshes are centered on the origin, so the body's bounding sphere is centered on its model translation.
+ */
+public class Body
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final String m_name;
+	private final Mesh m_mesh;
+	private final int m_vboIndex;
+	private final int m_iboIndex;
+	private final int m_texture;
+	private final boolean m_emissive;
+	private final boolean m_occluder;
+	private final float m_meshRadius;
+	private Matrix3D m_modelMatrix;
+	
+	/**
+	 * @param vboIndex index of the body's first vertex buffer
+	 * @param iboIndex index of the body's index buffer
+	 * @param emissive whether the body is drawn without lighting
+	 * @param occluder whether the body is large enough to be worth rasterizing as an occluder
+	 */
+	public Body(String name, Mesh mesh, int vboIndex, int iboIndex, int texture, boolean emissive, boolean occluder)
+	{
+		m_name = name;
+		m_mesh = mesh;
+		m_vboIndex = vboIndex;
+		m_iboIndex = iboIndex;
+		m_texture = texture;
+		m_emissive = emissive;
+		m_occluder = occluder;
+		m_meshRadius = computeRadius(mesh);
+		m_modelMatrix = new Matrix3D();
+	}
+	
+	public String getName()
+	{
+		return m_name;
+	}
+	
+	public Mesh getMesh()
+	{
+		return m_mesh;
+	}
+	
+	public int getVBOIndex()
+	{
+		return m_vboIndex;
+	}
+	
+	public int getIBOIndex()
+	{
+		return m_iboIndex;
+	}
+	
+	public int getTexture()
+	{
+		return m_texture;
+	}
+	
+	public boolean isEmissive()
+	{
+		return m_emissive;
+	}
+	
+	public boolean isOccluder()
+	{
+		return m_occluder;
+	}
+	
+	public Matrix3D getModelMatrix()
+	{
+		return m_modelMatrix;
+	}
+	
+	/**
+	 * Stores a copy of the given model matrix.
+	 */
+	public void setModelMatrix(Matrix3D modelMatrix)
+	{
+		Matrix3D copy = new Matrix3D();
+		copy.concatenate(modelMatrix);
+		m_modelMatrix = copy;
+	}
+	
+	public float getCenterX()
+	{
+		return (float) m_modelMatrix.getElement(0, 3);
+	}
+	
+	public float getCenterY()
+	{
+		return (float) m_modelMatrix.getElement(1, 3);
+	}
+	
+	public float getCenterZ()
+	{
+		return (float) m_modelMatrix.getElement(2, 3);
+	}
+	
+	/**
+	 * @return the radius of the world-space bounding sphere, using the model matrix's largest axis scale
+	 */
+	public float getBoundingRadius()
+	{
+		double maxScaleSquared = 0.0;
+		for(int column = 0; column < 3; column++)
+		{
+			double scaleSquared = 0.0;
+			for(int row = 0; row < 3; row++)
+			{
+				scaleSquared += m_modelMatrix.getElement(row, column) * m_modelMatrix.getElement(row, column);
+			}
+			maxScaleSquared = Math.max(maxScaleSquared, scaleSquared);
+		}
+		return m_meshRadius * (float) Math.sqrt(maxScaleSquared);
+	}
+	
+	private static float computeRadius(Mesh mesh)
+	{
+		float[] positions = mesh.getPositions();
+		float maxSquared = 0.0f;
+		for(int i = 0; i < positions.length; i += 3)
+		{
+			maxSquared = Math.max(maxSquared, positions[i] * positions[i] + positions[i + 1] * positions[i + 1] + positions[i + 2] * positions[i + 2]);
+		}
+		return (float) Math.sqrt(maxSquared);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package project2;
+
+import graphicslib3D.Matrix3D;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Clustered forward lighting. The view frustum is divided into a grid of clusters (screen tiles times exponentially
+ * spaced depth slices), and every frame the point lights are binned into the clusters their sphere of influence
+ * touches. The fragment shader then only loops over the lights of its own cluster, so its cost depends on local light
+ * density rather than on the total number of lights.
+ * <p>
+ * Binning runs on the CPU, in parallel across clusters once there are enough lights. The results are written into
+ * three shader storage buffers shared by all views (see {@link MultiViewPass}): the view-space lights, an (offset,
+ * count) pair per cluster, and the concatenated light indices.
+ */
+public class ClusteredLighting
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final int CLUSTERS_X = 16;
+	public static final int CLUSTERS_Y = 9;
+	public static final int CLUSTERS_Z = 24;
+	public static final int CLUSTER_COUNT = CLUSTERS_X * CLUSTERS_Y * CLUSTERS_Z;
+	public static final int FLOATS_PER_LIGHT = 8;
+	private static final int MAX_LIGHTS_PER_CLUSTER = 128;
+	private static final int PARALLEL_LIGHT_THRESHOLD = 32;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private float m_fovy, m_aspect, m_near, m_far;
+	private final float[] m_clusterMin;
+	private final float[] m_clusterMax;
+	private final int[] m_clusterLights;
+	private final int[] m_clusterCounts;
+	private float[] m_viewLights;
+	private int m_lightCount;
+	private int[] m_sliceLights;
+	private final int[] m_sliceCounts;
+	
+	public ClusteredLighting()
+	{
+		m_clusterMin = new float[CLUSTER_COUNT * 3];
+		m_clusterMax = new float[CLUSTER_COUNT * 3];
+		m_clusterLights = new int[CLUSTER_COUNT * MAX_LIGHTS_PER_CLUSTER];
+		m_clusterCounts = new int[CLUSTER_COUNT];
+		m_viewLights = new float[0];
+		m_sliceLights = new int[0];
+		m_sliceCounts = new int[CLUSTERS_Z];
+	}
+	
+	/**
+	 * Rebuilds the view-space bounding boxes of the clusters if the projection has changed.
+	 */
+	public void setProjection(float fovy, float aspect, float near, float far)
+	{
+		if(fovy == m_fovy && aspect == m_aspect && near == m_near && far == m_far)
+		{
+			return;
+		}
+		m_fovy = fovy;
+		m_aspect = aspect;
+		m_near = near;
+		m_far = far;
+		
+		float tanY = (float) Math.tan(Math.toRadians(0.5f * fovy));
+		float tanX = tanY * aspect;
+		for(int z = 0; z < CLUSTERS_Z; z++)
+		{
+			float nearDepth = sliceDepth(z);
+			float farDepth = sliceDepth(z + 1);
+			for(int y = 0; y < CLUSTERS_Y; y++)
+			{
+				float y0 = -1.0f + 2.0f * y / CLUSTERS_Y, y1 = -1.0f + 2.0f * (y + 1) / CLUSTERS_Y;
+				for(int x = 0; x < CLUSTERS_X; x++)
+				{
+					float x0 = -1.0f + 2.0f * x / CLUSTERS_X, x1 = -1.0f + 2.0f * (x + 1) / CLUSTERS_X;
+					int c = (x + CLUSTERS_X * (y + CLUSTERS_Y * z)) * 3;
+					
+					// The tile's side planes pass through the eye, so the box spans both ends of both depths.
+					m_clusterMin[c] = Math.min(Math.min(x0 * tanX * nearDepth, x0 * tanX * farDepth), Math.min(x1 * tanX * nearDepth, x1 * tanX * farDepth));
+					m_clusterMax[c] = Math.max(Math.max(x0 * tanX * nearDepth, x0 * tanX * farDepth), Math.max(x1 * tanX * nearDepth, x1 * tanX * farDepth));
+					m_clusterMin[c + 1] = Math.min(Math.min(y0 * tanY * nearDepth, y0 * tanY * farDepth), Math.min(y1 * tanY * nearDepth, y1 * tanY * farDepth));
+					m_clusterMax[c + 1] = Math.max(Math.max(y0 * tanY * nearDepth, y0 * tanY * farDepth), Math.max(y1 * tanY * nearDepth, y1 * tanY * farDepth));
+					m_clusterMin[c + 2] = -farDepth;
+					m_clusterMax[c + 2] = -nearDepth;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Bins the lights into clusters for the given view matrix.
+	 */
+	public void update(Matrix3D viewMatrix, List<PointLight> lights)
+	{
+		transformLights(viewMatrix, lights);
+		binLightsBySlice();
+		
+		IntStream clusters = IntStream.range(0, CLUSTER_COUNT);
+		if(m_lightCount > PARALLEL_LIGHT_THRESHOLD)
+		{
+			clusters = clusters.parallel();
+		}
+		clusters.forEach(this::assignLights);
+	}
+	
+	public int getLightCount()
+	{
+		return m_lightCount;
+	}
+	
+	/**
+	 * @return the number of light indices the last update assigned to clusters
+	 */
+	public int getIndexCount()
+	{
+		int totalIndices = 0;
+		for(int count : m_clusterCounts)
+		{
+			totalIndices += count;
+		}
+		return totalIndices;
+	}
+	
+	public float getNear()
+	{
+		return m_near;
+	}
+	
+	public float getFar()
+	{
+		return m_far;
+	}
+	
+	/**
+	 * Appends the result of the last update to buffers shared with other views. Cluster offsets and light indices are
+	 * made absolute, so they point at this view's part of the shared index and light buffers.
+	 */
+	public void write(FloatBuffer lightData, IntBuffer clusterData, IntBuffer indexData)
+	{
+		int firstLight = lightData.position() / FLOATS_PER_LIGHT;
+		lightData.put(m_viewLights, 0, m_lightCount * FLOATS_PER_LIGHT);
+		for(int cluster = 0; cluster < CLUSTER_COUNT; cluster++)
+		{
+			clusterData.put(indexData.position());
+			clusterData.put(m_clusterCounts[cluster]);
+			for(int i = 0; i < m_clusterCounts[cluster]; i++)
+			{
+				indexData.put(firstLight + m_clusterLights[cluster * MAX_LIGHTS_PER_CLUSTER + i]);
+			}
+		}
+	}
+	
+	private float sliceDepth(int slice)
+	{
+		return m_near * (float) Math.pow(m_far / m_near, (double) slice / CLUSTERS_Z);
+	}
+	
+	private int depthSlice(float depth)
+	{
+		if(depth <= m_near)
+		{
+			return 0;
+		}
+		int slice = (int) (Math.log(depth / m_near) / Math.log(m_far / m_near) * CLUSTERS_Z);
+		return Math.min(slice, CLUSTERS_Z - 1);
+	}
+	
+	private void transformLights(Matrix3D view, List<PointLight> lights)
+	{
+		m_lightCount = lights.size();
+		if(m_viewLights.length < m_lightCount * FLOATS_PER_LIGHT)
+		{
+			m_viewLights = new float[m_lightCount * FLOATS_PER_LIGHT];
+		}
+		for(int i = 0; i < m_lightCount; i++)
+		{
+			PointLight light = lights.get(i);
+			int l = i * FLOATS_PER_LIGHT;
+			for(int row = 0; row < 3; row++)
+			{
+				m_viewLights[l + row] = (float) (view.getElement(row, 0) * light.getX() + view.getElement(row, 1) * light.getY()
+						+ view.getElement(row, 2) * light.getZ() + view.getElement(row, 3));
+			}
+			m_viewLights[l + 3] = light.getRadius();
+			m_viewLights[l + 4] = light.getRed();
+			m_viewLights[l + 5] = light.getGreen();
+			m_viewLights[l + 6] = light.getBlue();
+			m_viewLights[l + 7] = light.getIntensity();
+		}
+	}
+	
+	/**
+	 * Coarse pass: lists, for each depth slice, the lights whose depth range overlaps it.
+	 */
+	private void binLightsBySlice()
+	{
+		if(m_sliceLights.length < m_lightCount * CLUSTERS_Z)
+		{
+			m_sliceLights = new int[m_lightCount * CLUSTERS_Z];
+		}
+		Arrays.fill(m_sliceCounts, 0);
+		for(int i = 0; i < m_lightCount; i++)
+		{
+			float depth = -m_viewLights[i * FLOATS_PER_LIGHT + 2];
+			float radius = m_viewLights[i * FLOATS_PER_LIGHT + 3];
+			if(depth + radius < m_near || depth - radius > m_far)
+			{
+				continue;
+			}
+			int first = depthSlice(depth - radius);
+			int last = depthSlice(depth + radius);
+			for(int z = first; z <= last; z++)
+			{
+				m_sliceLights[z * m_lightCount + m_sliceCounts[z]++] = i;
+			}
+		}
+	}
+	
+	/**
+	 * Fine pass for one cluster: tests its slice's lights against the cluster's bounding box. Each cluster only writes
+	 * its own slots, so clusters can be processed concurrently.
+	 */
+	private void assignLights(int cluster)
+	{
+		int z = cluster / (CLUSTERS_X * CLUSTERS_Y);
+		int c = cluster * 3;
+		int count = 0;
+		for(int s = 0; s < m_sliceCounts[z] && count < MAX_LIGHTS_PER_CLUSTER; s++)
+		{
+			int i = m_sliceLights[z * m_lightCount + s];
+			int l = i * FLOATS_PER_LIGHT;
+			float distanceSquared = 0.0f;
+			for(int k = 0; k < 3; k++)
+			{
+				float p = m_viewLights[l + k];
+				float nearest = Math.max(m_clusterMin[c + k], Math.min(p, m_clusterMax[c + k]));
+				distanceSquared += (p - nearest) * (p - nearest);
+			}
+			if(distanceSquared <= m_viewLights[l + 3] * m_viewLights[l + 3])
+			{
+				m_clusterLights[cluster * MAX_LIGHTS_PER_CLUSTER + count++] = i;
+			}
+		}
+		m_clusterCounts[cluster] = count;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,343 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Records the frames drawn to the window as numbered PNG files without stalling the render thread.
+ * <p>
+ * Each frame is read with {@code glReadPixels} into one of a ring of pixel buffer objects, which returns immediately
+ * because the copy happens on the GPU. A fence marks when the copy is done, and a few frames later, once the fence has
+ * signaled, the buffer is mapped and its pixels are handed to a thread pool that flips, compresses and writes them. If
+ * the GPU or the writers fall behind, frames are dropped rather than waited for. Frames are numbered only as they are
+ * handed to the writers, so dropped frames leave no gap in the sequence of files.
+ */
+public class FrameCapture
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final String CAPTURE_DIRECTORY = "captures";
+	private static final int RING_SIZE = 3;
+	private static final int MAX_PENDING_WRITES = 8;
+	private static final int BYTES_PER_PIXEL = 4;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final int[] m_pixelBuffers;
+	private final long[] m_fences;
+	private final int[] m_widths, m_heights, m_capacities;
+	private final Capture[] m_slotCaptures;
+	private int m_next;
+	private volatile boolean m_requested;
+	private Capture m_capture;
+	private final AtomicInteger m_pendingWrites;
+	private final BlockingQueue<byte[]> m_freeArrays;
+	private final ExecutorService m_writers;
+	
+	public FrameCapture()
+	{
+		m_pixelBuffers = new int[RING_SIZE];
+		m_fences = new long[RING_SIZE];
+		m_widths = new int[RING_SIZE];
+		m_heights = new int[RING_SIZE];
+		m_capacities = new int[RING_SIZE];
+		m_slotCaptures = new Capture[RING_SIZE];
+		m_pendingWrites = new AtomicInteger();
+		m_freeArrays = new ArrayBlockingQueue<>(MAX_PENDING_WRITES);
+		m_writers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+			Thread thread = new Thread(runnable, "Frame Writer");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+	
+	public void init(GL4 gl)
+	{
+		gl.glGenBuffers(RING_SIZE, m_pixelBuffers, 0);
+	}
+	
+	public boolean isCapturing()
+	{
+		return m_requested;
+	}
+	
+	/**
+	 * Starts or stops capturing from the next frame on. May be called from any thread. Each capture goes into a new
+	 * directory named after the time it started; frames already read when it stops are still written.
+	 */
+	public void setCapturing(boolean capturing)
+	{
+		m_requested = capturing;
+	}
+	
+	/**
+	 * Hands finished reads to the writers and, while capturing, starts reading the current frame from the bound read
+	 * framebuffer. Call once per frame after it has been drawn.
+	 */
+	public void capture(GL4 gl, int width, int height)
+	{
+		if(m_requested != (m_capture != null))
+		{
+			toggle();
+		}
+		
+		// Collect every slot whose copy has finished, so that a stopped capture still drains.
+		for(int i = 0; i < RING_SIZE; i++)
+		{
+			int slot = (m_next + i) % RING_SIZE;
+			if(m_fences[slot] != 0 && isSignaled(gl, m_fences[slot]))
+			{
+				collect(gl, slot);
+			}
+		}
+		if(m_capture == null)
+		{
+			return;
+		}
+		
+		int slot = m_next;
+		if(m_fences[slot] != 0)
+		{
+			// The GPU has not finished copying the frame read RING_SIZE frames ago.
+			m_capture.m_droppedFrames.incrementAndGet();
+			return;
+		}
+		
+		int size = width * height * BYTES_PER_PIXEL;
+		gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, m_pixelBuffers[slot]);
+		if(m_capacities[slot] != size)
+		{
+			gl.glBufferData(GL_PIXEL_PACK_BUFFER, size, null, GL_STREAM_READ);
+			m_capacities[slot] = size;
+		}
+		gl.glPixelStorei(GL_PACK_ALIGNMENT, 1);
+		gl.glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, 0);
+		gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+		m_fences[slot] = gl.glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		m_widths[slot] = width;
+		m_heights[slot] = height;
+		m_slotCaptures[slot] = m_capture;
+		m_capture.m_inFlight.incrementAndGet();
+		m_next = (slot + 1) % RING_SIZE;
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		for(int slot = 0; slot < RING_SIZE; slot++)
+		{
+			if(m_fences[slot] != 0)
+			{
+				gl.glDeleteSync(m_fences[slot]);
+				m_fences[slot] = 0;
+				m_slotCaptures[slot].drop();
+				m_slotCaptures[slot] = null;
+			}
+		}
+		if(m_capture != null)
+		{
+			m_capture.stop();
+			m_capture = null;
+		}
+		gl.glDeleteBuffers(RING_SIZE, m_pixelBuffers, 0);
+		
+		// Let the frames already handed over finish writing.
+		m_writers.shutdown();
+		try
+		{
+			m_writers.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void toggle()
+	{
+		if(m_capture != null)
+		{
+			// Frames already read still drain into this capture's directory; it reports once they are written.
+			m_capture.stop();
+			m_capture = null;
+			return;
+		}
+		
+		Path directory = Paths.get(CAPTURE_DIRECTORY, new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()));
+		try
+		{
+			Files.createDirectories(directory);
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			m_requested = false;
+			return;
+		}
+		m_capture = new Capture(directory);
+		System.out.println("Capturing frames to " + directory);
+	}
+	
+	private static boolean isSignaled(GL4 gl, long fence)
+	{
+		int status = gl.glClientWaitSync(fence, 0, 0);
+		return status == GL_ALREADY_SIGNALED || status == GL_CONDITION_SATISFIED;
+	}
+	
+	/**
+	 * Copies a finished read out of its pixel buffer and queues it for writing, freeing the slot.
+	 */
+	private void collect(GL4 gl, int slot)
+	{
+		Capture capture = m_slotCaptures[slot];
+		m_slotCaptures[slot] = null;
+		gl.glDeleteSync(m_fences[slot]);
+		m_fences[slot] = 0;
+		if(m_pendingWrites.get() >= MAX_PENDING_WRITES)
+		{
+			// The writers cannot keep up; holding more frames would only grow memory.
+			capture.drop();
+			return;
+		}
+		
+		int width = m_widths[slot], height = m_heights[slot];
+		int size = width * height * BYTES_PER_PIXEL;
+		byte[] pixels = m_freeArrays.poll();
+		if(pixels == null || pixels.length != size)
+		{
+			pixels = new byte[size];
+		}
+		gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, m_pixelBuffers[slot]);
+		ByteBuffer mapped = gl.glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, size, GL_MAP_READ_BIT);
+		if(mapped == null)
+		{
+			gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+			capture.drop();
+			return;
+		}
+		mapped.get(pixels);
+		gl.glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+		gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+		
+		Path file = capture.nextFile();
+		byte[] frame = pixels;
+		m_pendingWrites.incrementAndGet();
+		m_writers.execute(() -> {
+			try
+			{
+				write(file, frame, width, height);
+				capture.m_writtenFrames.incrementAndGet();
+			}
+			catch(IOException e)
+			{
+				e.printStackTrace();
+			}
+			finally
+			{
+				m_freeArrays.offer(frame);
+				m_pendingWrites.decrementAndGet();
+				capture.release();
+			}
+		});
+	}
+	
+	/**
+	 * Writes RGBA pixels, bottom row first as GL reads them, as a PNG file.
+	 */
+	private static void write(Path file, byte[] pixels, int width, int height) throws IOException
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] row = new int[width];
+		for(int y = 0; y < height; y++)
+		{
+			int offset = (height - 1 - y) * width * BYTES_PER_PIXEL;
+			for(int x = 0; x < width; x++, offset += BYTES_PER_PIXEL)
+			{
+				row[x] = (pixels[offset] & 0xFF) << 16 | (pixels[offset + 1] & 0xFF) << 8 | (pixels[offset + 2] & 0xFF);
+			}
+			image.setRGB(0, y, width, 1, row, 0, width);
+		}
+		ImageIO.write(image, "png", file.toFile());
+	}
+	
+	/**
+	 * One run of frames captured into its own directory. Frames are in flight from the time they are read until they
+	 * are written or dropped; once the capture has stopped and none are left, it reports how many were written.
+	 */
+	private static class Capture
+	{
+		private final Path m_directory;
+		private int m_frameCount;
+		private final AtomicInteger m_writtenFrames, m_droppedFrames, m_inFlight;
+		private final AtomicBoolean m_reported;
+		private volatile boolean m_stopped;
+		
+		private Capture(Path directory)
+		{
+			m_directory = directory;
+			m_writtenFrames = new AtomicInteger();
+			m_droppedFrames = new AtomicInteger();
+			m_inFlight = new AtomicInteger();
+			m_reported = new AtomicBoolean();
+		}
+		
+		/**
+		 * Numbers the next frame handed to the writers. Called on the GL thread only.
+		 */
+		private Path nextFile()
+		{
+			return m_directory.resolve(String.format("frame_%06d.png", m_frameCount++));
+		}
+		
+		private void drop()
+		{
+			m_droppedFrames.incrementAndGet();
+			release();
+		}
+		
+		private void release()
+		{
+			if(m_inFlight.decrementAndGet() == 0 && m_stopped)
+			{
+				report();
+			}
+		}
+		
+		private void stop()
+		{
+			m_stopped = true;
+			if(m_inFlight.get() == 0)
+			{
+				report();
+			}
+		}
+		
+		private void report()
+		{
+			if(m_reported.compareAndSet(false, true))
+			{
+				System.out.println("Captured " + m_writtenFrames.get() + " frames to " + m_directory + ", dropped " + m_droppedFrames.get());
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.util.Animator;
+import com.jogamp.opengl.util.AnimatorBase;
+import com.jogamp.opengl.util.FPSAnimator;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Drives the render loop and adapts the render resolution to hold a target frame time.
+ * <p>
+ * Frames are paced in one of three modes: as fast as possible, synchronized to the display's refresh, or at a fixed
+ * rate. Every frame is bracketed by {@link #beginFrame} and {@link #endFrame}, which measure the CPU time spent
+ * submitting it and, through timer queries read back a few frames later so the CPU never waits for them, the GPU time
+ * spent drawing it. Only the GPU time depends on the number of pixels drawn, so it alone steers the render scale: the
+ * scale is nudged towards the value that would make the GPU time meet the target, within the configured bounds.
+ */
+public class FrameScheduler
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	private static final int QUERY_COUNT = 4;
+	private static final float SMOOTHING = 0.1f;
+	private static final float ADAPT_RATE = 0.1f;
+	private static final float DEADBAND = 0.05f;
+	private static final float SCALE_STEP = 0.05f;
+	
+	public enum Mode
+	{
+		UNCAPPED, VSYNC, FIXED_RATE
+	}
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final GLAutoDrawable m_drawable;
+	private final int m_fixedRate;
+	private final float m_targetFrameMillis;
+	private final float m_minScale, m_maxScale;
+	private AnimatorBase m_animator;
+	private volatile Mode m_mode;
+	private volatile boolean m_swapIntervalChanged;
+	private final int[] m_queries;
+	private int m_queryHead, m_queryCount;
+	private long m_frameStart, m_lastFrameStart;
+	private float m_cpuMillis, m_gpuMillis, m_frameMillis;
+	private float m_renderScale;
+	
+	/**
+	 * @param fixedRate         frames per second in {@link Mode#FIXED_RATE}
+	 * @param targetFrameMillis GPU frame time the render scale is adapted to hold
+	 * @param minScale          smallest render scale, as a fraction of the drawable's size
+	 * @param maxScale          largest render scale
+	 */
+	public FrameScheduler(GLAutoDrawable drawable, Mode mode, int fixedRate, float targetFrameMillis, float minScale, float maxScale)
+	{
+		m_drawable = drawable;
+		m_mode = mode;
+		m_fixedRate = fixedRate;
+		m_targetFrameMillis = targetFrameMillis;
+		m_minScale = minScale;
+		m_maxScale = maxScale;
+		m_renderScale = maxScale;
+		m_queries = new int[QUERY_COUNT];
+		m_swapIntervalChanged = true;
+	}
+	
+	public synchronized void start()
+	{
+		m_animator = m_mode == Mode.FIXED_RATE ? new FPSAnimator(m_drawable, m_fixedRate) : new Animator(m_drawable);
+		m_animator.start();
+	}
+	
+	public synchronized void stop()
+	{
+		if(m_animator != null)
+		{
+			m_animator.stop();
+			m_animator = null;
+		}
+	}
+	
+	public Mode getMode()
+	{
+		return m_mode;
+	}
+	
+	/**
+	 * Switches pacing mode, restarting the animator if it is running.
+	 */
+	public synchronized void setMode(Mode mode)
+	{
+		boolean running = m_animator != null;
+		stop();
+		m_mode = mode;
+		m_swapIntervalChanged = true;
+		if(running)
+		{
+			start();
+		}
+	}
+	
+	public void init(GL4 gl)
+	{
+		gl.glGenQueries(QUERY_COUNT, m_queries, 0);
+	}
+	
+	/**
+	 * Starts timing a frame. Must be called on the GL thread before anything is drawn.
+	 */
+	public void beginFrame(GL4 gl)
+	{
+		m_frameStart = System.nanoTime();
+		if(m_lastFrameStart != 0)
+		{
+			m_frameMillis = smooth(m_frameMillis, (m_frameStart - m_lastFrameStart) / 1.0e6f);
+		}
+		m_lastFrameStart = m_frameStart;
+		
+		if(m_swapIntervalChanged)
+		{
+			m_swapIntervalChanged = false;
+			gl.setSwapInterval(m_mode == Mode.VSYNC ? 1 : 0);
+		}
+		
+		collectQueries(gl);
+		if(m_queryCount < QUERY_COUNT)
+		{
+			gl.glBeginQuery(GL_TIME_ELAPSED, m_queries[(m_queryHead + m_queryCount) % QUERY_COUNT]);
+		}
+	}
+	
+	/**
+	 * Finishes timing a frame and updates the render scale. Must be called on the GL thread after the frame is drawn.
+	 */
+	public void endFrame(GL4 gl)
+	{
+		// A query only runs when the ring had room for it at the start of the frame.
+		if(m_queryCount < QUERY_COUNT)
+		{
+			gl.glEndQuery(GL_TIME_ELAPSED);
+			m_queryCount++;
+		}
+		m_cpuMillis = smooth(m_cpuMillis, (System.nanoTime() - m_frameStart) / 1.0e6f);
+	}
+	
+	/**
+	 * @return the fraction of the drawable's width and height to render at, in coarse steps so that the render target is
+	 * not reallocated on every small adjustment
+	 */
+	public float getRenderScale()
+	{
+		float scale = Math.round(m_renderScale / SCALE_STEP) * SCALE_STEP;
+		return Math.max(m_minScale, Math.min(m_maxScale, scale));
+	}
+	
+	/**
+	 * @return smoothed CPU time per frame spent between {@link #beginFrame} and {@link #endFrame}
+	 */
+	public float getCpuMillis()
+	{
+		return m_cpuMillis;
+	}
+	
+	/**
+	 * @return smoothed GPU time per frame
+	 */
+	public float getGpuMillis()
+	{
+		return m_gpuMillis;
+	}
+	
+	/**
+	 * @return smoothed time between the starts of consecutive frames
+	 */
+	public float getFrameMillis()
+	{
+		return m_frameMillis;
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		gl.glDeleteQueries(QUERY_COUNT, m_queries, 0);
+	}
+	
+	/**
+	 * Reads back every finished query, oldest first, without waiting for unfinished ones.
+	 */
+	private void collectQueries(GL4 gl)
+	{
+		int[] available = new int[1];
+		long[] elapsed = new long[1];
+		while(m_queryCount > 0)
+		{
+			int query = m_queries[m_queryHead];
+			gl.glGetQueryObjectiv(query, GL_QUERY_RESULT_AVAILABLE, available, 0);
+			if(available[0] == GL_FALSE)
+			{
+				break;
+			}
+			gl.glGetQueryObjectui64v(query, GL_QUERY_RESULT, elapsed, 0);
+			m_queryHead = (m_queryHead + 1) % QUERY_COUNT;
+			m_queryCount--;
+			m_gpuMillis = smooth(m_gpuMillis, elapsed[0] / 1.0e6f);
+			adaptRenderScale();
+		}
+	}
+	
+	private void adaptRenderScale()
+	{
+		if(m_gpuMillis <= 0.0f)
+		{
+			return;
+		}
+		// GPU time is roughly proportional to the pixel count, which goes with the square of the scale.
+		float ratio = m_targetFrameMillis / m_gpuMillis;
+		if(Math.abs(ratio - 1.0f) < DEADBAND)
+		{
+			return;
+		}
+		float ideal = m_renderScale * (float) Math.sqrt(ratio);
+		m_renderScale += (ideal - m_renderScale) * ADAPT_RATE;
+		m_renderScale = Math.max(m_minScale, Math.min(m_maxScale, m_renderScale));
+	}
+	
+	private static float smooth(float average, float sample)
+	{
+		return average == 0.0f ? sample : average + (sample - average) * SMOOTHING;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * A compressed 2D texture with its full mip chain stored in a KTX 1.1 file.
+ * <p>
+ * The file is read into a direct buffer, so uploading hands the driver the data without copying it through the Java
+ * heap. It is not memory-mapped: a mapping would keep the file open until the buffer is collected, and a cache file
+ * that is still mapped cannot be replaced when its texture is transcoded again.
+ */
+public class KtxTexture
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	private static final byte[] IDENTIFIER = {(byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'};
+	private static final int ENDIANNESS = 0x04030201;
+	private static final int HEADER_SIZE = IDENTIFIER.length + 13 * 4;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final ByteBuffer m_data;
+	private final int m_internalFormat;
+	private final int m_width, m_height;
+	private final int[] m_levelOffsets;
+	private final int[] m_levelSizes;
+	
+	private KtxTexture(ByteBuffer data, int internalFormat, int width, int height, int[] levelOffsets, int[] levelSizes)
+	{
+		m_data = data;
+		m_internalFormat = internalFormat;
+		m_width = width;
+		m_height = height;
+		m_levelOffsets = levelOffsets;
+		m_levelSizes = levelSizes;
+	}
+	
+	/**
+	 * Reads a KTX file holding a compressed 2D texture.
+	 *
+	 * @throws IOException if the file cannot be read or is not a compressed 2D KTX texture
+	 */
+	public static KtxTexture read(Path file) throws IOException
+	{
+		ByteBuffer data;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if(channel.size() > Integer.MAX_VALUE)
+			{
+				throw new IOException(file + " is too large to be a texture");
+			}
+			data = ByteBuffer.allocateDirect((int) channel.size());
+			while(data.hasRemaining())
+			{
+				if(channel.read(data) < 0)
+				{
+					throw new IOException(file + " is truncated");
+				}
+			}
+			data.flip();
+		}
+		if(data.limit() < HEADER_SIZE)
+		{
+			throw new IOException(file + " is too short to be a KTX file");
+		}
+		
+		byte[] identifier = new byte[IDENTIFIER.length];
+		data.get(identifier);
+		data.order(ByteOrder.LITTLE_ENDIAN);
+		if(!Arrays.equals(identifier, IDENTIFIER) || data.getInt() != ENDIANNESS)
+		{
+			throw new IOException(file + " is not a little-endian KTX 1.1 file");
+		}
+		int glType = data.getInt();
+		data.getInt(); // glTypeSize
+		data.getInt(); // glFormat
+		int internalFormat = data.getInt();
+		data.getInt(); // glBaseInternalFormat
+		int width = data.getInt();
+		int height = data.getInt();
+		int depth = data.getInt();
+		int arrayElements = data.getInt();
+		int faces = data.getInt();
+		int levels = Math.max(data.getInt(), 1);
+		int keyValueBytes = data.getInt();
+		if(glType != 0 || depth != 0 || arrayElements != 0 || faces != 1)
+		{
+			throw new IOException(file + " does not hold a compressed 2D texture");
+		}
+		
+		int[] levelOffsets = new int[levels];
+		int[] levelSizes = new int[levels];
+		int offset = HEADER_SIZE + keyValueBytes;
+		for(int level = 0; level < levels; level++)
+		{
+			if(offset + 4 > data.limit())
+			{
+				throw new IOException(file + " is truncated");
+			}
+			levelSizes[level] = data.getInt(offset);
+			levelOffsets[level] = offset + 4;
+			offset = align(levelOffsets[level] + levelSizes[level]);
+			if(levelOffsets[level] + levelSizes[level] > data.limit())
+			{
+				throw new IOException(file + " is truncated");
+			}
+		}
+		return new KtxTexture(data, internalFormat, width, height, levelOffsets, levelSizes);
+	}
+	
+	/**
+	 * Writes a compressed 2D texture. The file is written next to its destination and moved into place, so readers never
+	 * see a partial file.
+	 *
+	 * @param levels compressed images, largest first, each half the size of the one before
+	 */
+	public static void write(Path file, int internalFormat, int baseInternalFormat, int width, int height, List<byte[]> levels) throws IOException
+	{
+		int size = HEADER_SIZE;
+		for(byte[] level : levels)
+		{
+			size = align(size + 4 + level.length);
+		}
+		
+		ByteBuffer data = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		data.put(IDENTIFIER);
+		data.putInt(ENDIANNESS);
+		data.putInt(0); // glType: compressed
+		data.putInt(1); // glTypeSize
+		data.putInt(0); // glFormat: compressed
+		data.putInt(internalFormat);
+		data.putInt(baseInternalFormat);
+		data.putInt(width);
+		data.putInt(height);
+		data.putInt(0); // pixelDepth
+		data.putInt(0); // numberOfArrayElements
+		data.putInt(1); // numberOfFaces
+		data.putInt(levels.size());
+		data.putInt(0); // bytesOfKeyValueData
+		for(byte[] level : levels)
+		{
+			data.putInt(level.length);
+			data.put(level);
+			data.position(align(data.position()));
+		}
+		
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try
+		{
+			Files.write(temporary, data.array());
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+	
+	/**
+	 * Uploads every mip level into the texture currently bound to {@code GL_TEXTURE_2D}.
+	 */
+	public void upload(GL4 gl)
+	{
+		int width = m_width, height = m_height;
+		for(int level = 0; level < m_levelSizes.length; level++)
+		{
+			ByteBuffer image = m_data.duplicate();
+			image.position(m_levelOffsets[level]);
+			image.limit(m_levelOffsets[level] + m_levelSizes[level]);
+			gl.glCompressedTexImage2D(GL_TEXTURE_2D, level, m_internalFormat, width, height, 0, m_levelSizes[level], image.slice());
+			width = Math.max(width / 2, 1);
+			height = Math.max(height / 2, 1);
+		}
+		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, m_levelSizes.length - 1);
+	}
+	
+	public int getInternalFormat()
+	{
+		return m_internalFormat;
+	}
+	
+	public int getWidth()
+	{
+		return m_width;
+	}
+	
+	public int getHeight()
+	{
+		return m_height;
+	}
+	
+	public int getLevelCount()
+	{
+		return m_levelSizes.length;
+	}
+	
+	/**
+	 * @return the combined size in bytes of all mip levels
+	 */
+	public int getByteCount()
+	{
+		int total = 0;
+		for(int size : m_levelSizes)
+		{
+			total += size;
+		}
+		return total;
+	}
+	
+	private static int align(int offset)
+	{
+		return (offset + 3) & ~3;
+	}
+}
\ No newline at end of file
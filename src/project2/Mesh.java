@@ -0,0 +1,68 @@
+package project2;
+
+/**
+ * Immutable indexed triangle mesh stored in primitive arrays.
+ * <p>
+ * Positions, normals and texture coordinates are tightly packed (3, 3 and 2 floats per vertex). Tangents are stored as
+ * 4 floats per vertex, with the handedness of the bitangent in the w component.
+ */
+public class Mesh
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final float[] m_positions;
+	private final float[] m_texCoords;
+	private final float[] m_normals;
+	private final float[] m_tangents;
+	private final int[] m_indices;
+	
+	public Mesh(float[] positions, float[] texCoords, float[] normals, float[] tangents, int[] indices)
+	{
+		m_positions = positions;
+		m_texCoords = texCoords;
+		m_normals = normals;
+		m_tangents = tangents;
+		m_indices = indices;
+	}
+	
+	public float[] getPositions()
+	{
+		return m_positions;
+	}
+	
+	public float[] getTexCoords()
+	{
+		return m_texCoords;
+	}
+	
+	public float[] getNormals()
+	{
+		return m_normals;
+	}
+	
+	public float[] getTangents()
+	{
+		return m_tangents;
+	}
+	
+	public int[] getIndices()
+	{
+		return m_indices;
+	}
+	
+	public int getVertexCount()
+	{
+		return m_positions.length / 3;
+	}
+	
+	public int getIndexCount()
+	{
+		return m_indices.length;
+	}
+	
+	public int getTriangleCount()
+	{
+		return m_indices.length / 3;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package project2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+import graphicslib3D.Vertex3D;
+import graphicslib3D.shape.Sphere;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Headless comparison of the UV sphere from graphicslib3D against icospheres of increasing subdivision level.
+ * <p>
+ * For each mesh it reports the triangle and vertex counts, the average cache miss ratio (ACMR, transformed vertices per
+ * triangle) of a simulated FIFO post-transform cache, the CPU generation time, and the GPU time of repeatedly drawing
+ * the mesh into an offscreen drawable. Each mesh is measured both as generated and after {@link MeshOptimizer}. A second
+ * table compares the float and {@link VertexQuantizer} vertex sizes and the largest quantization error per attribute,
+ * and the benchmark exits with a failure status if any error exceeds {@link VertexQuantizer#getErrorBounds}. The GPU
+ * timing is skipped when no OpenGL 4 context can be created.
+ */
+public class MeshBenchmark implements GLEventListener
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	private static final int SPHERE_PRECISION = 24;
+	private static final int MAX_SUBDIVISIONS = 4;
+	private static final int GENERATION_RUNS = 50;
+	private static final int DRAWS_PER_MESH = 2000;
+	private static final int TARGET_SIZE = 512;
+	private static final int FLOAT_VERTEX_SIZE = (3 + 2 + 3 + 4) * 4;
+	private static final String[] VERTEX_SHADER = {
+			"#version 450\n",
+			"layout (location = 0) in vec3 position;\n",
+			"void main(void) { gl_Position = vec4(position * 0.9, 1.0); }\n"};
+	private static final String[] FRAGMENT_SHADER = {
+			"#version 450\n",
+			"out vec4 color;\n",
+			"void main(void) { color = vec4(1.0); }\n"};
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final Map<String, Mesh> m_meshes;
+	private final Map<String, Double> m_drawTimes;
+	
+	public MeshBenchmark(Map<String, Mesh> meshes)
+	{
+		m_meshes = meshes;
+		m_drawTimes = new LinkedHashMap<>();
+	}
+	
+	public static void main(String[] args)
+	{
+		Map<String, Mesh> meshes = new LinkedHashMap<>();
+		Map<String, Double> generationTimes = new LinkedHashMap<>();
+		
+		long start = System.nanoTime();
+		for(int run = 0; run < GENERATION_RUNS; run++)
+		{
+			meshes.put("Sphere(" + SPHERE_PRECISION + ")", fromSphere(new Sphere(SPHERE_PRECISION)));
+		}
+		generationTimes.put("Sphere(" + SPHERE_PRECISION + ")", (System.nanoTime() - start) / 1e6 / GENERATION_RUNS);
+		
+		for(int level = 0; level <= MAX_SUBDIVISIONS; level++)
+		{
+			start = System.nanoTime();
+			for(int run = 0; run < GENERATION_RUNS; run++)
+			{
+				meshes.put("Icosphere(" + level + ")", MeshGenerator.icosphere(level));
+			}
+			generationTimes.put("Icosphere(" + level + ")", (System.nanoTime() - start) / 1e6 / GENERATION_RUNS);
+		}
+		
+		// Also measure every mesh after the load-time reordering applied by the mesh cache, charging the optimization to
+		// its generation time.
+		for(String name : new ArrayList<>(meshes.keySet()))
+		{
+			Mesh mesh = meshes.get(name);
+			start = System.nanoTime();
+			for(int run = 0; run < GENERATION_RUNS; run++)
+			{
+				meshes.put(name + " opt", MeshOptimizer.optimize(mesh));
+			}
+			generationTimes.put(name + " opt", generationTimes.get(name) + (System.nanoTime() - start) / 1e6 / GENERATION_RUNS);
+		}
+		
+		MeshBenchmark benchmark = new MeshBenchmark(meshes);
+		benchmark.runGPU();
+		
+		System.out.printf("%-18s %10s %10s %8s %10s %12s%n", "Mesh", "Triangles", "Vertices", "ACMR", "Gen (ms)", "Draw (us)");
+		for(Map.Entry<String, Mesh> entry : meshes.entrySet())
+		{
+			Mesh mesh = entry.getValue();
+			Double drawTime = benchmark.m_drawTimes.get(entry.getKey());
+			System.out.printf("%-18s %10d %10d %8.3f %10.3f %12s%n", entry.getKey(), mesh.getTriangleCount(), mesh.getVertexCount(),
+					MeshOptimizer.computeACMR(mesh.getIndices(), MeshOptimizer.DEFAULT_CACHE_SIZE), generationTimes.get(entry.getKey()),
+					drawTime == null ? "n/a" : String.format("%.3f", drawTime));
+		}
+		
+		// Size and worst-case round-trip error of the compact vertex format, checked against what quantization allows.
+		String[] attributes = {"Position", "Tex coord", "Normal"};
+		boolean withinBounds = true;
+		System.out.println();
+		System.out.printf("%-18s %12s %12s %12s %12s %12s%n", "Mesh", "Float (B)", "Compact (B)", "Position", "Tex coord", "Normal (deg)");
+		for(Map.Entry<String, Mesh> entry : meshes.entrySet())
+		{
+			Mesh mesh = entry.getValue();
+			QuantizedMesh quantized = VertexQuantizer.quantize(mesh);
+			double[] error = VertexQuantizer.measureError(mesh, quantized);
+			double[] bound = VertexQuantizer.getErrorBounds(quantized);
+			System.out.printf("%-18s %12d %12d %12.2e %12.2e %12.4f%n", entry.getKey(), mesh.getVertexCount() * FLOAT_VERTEX_SIZE,
+					mesh.getVertexCount() * VertexQuantizer.STRIDE, error[0], error[1], error[2]);
+			for(int i = 0; i < attributes.length; i++)
+			{
+				if(!(error[i] <= bound[i]))
+				{
+					System.err.printf("%s: %s error %.4e exceeds bound %.4e%n", entry.getKey(), attributes[i], error[i], bound[i]);
+					withinBounds = false;
+				}
+			}
+		}
+		if(!withinBounds)
+		{
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Converts a graphicslib3D sphere into an indexed {@link Mesh} so both kinds of sphere go through the same path.
+	 */
+	private static Mesh fromSphere(Sphere sphere)
+	{
+		Vertex3D[] vertices = sphere.getVertices();
+		int[] indices = sphere.getIndices();
+		MeshBuilder builder = new MeshBuilder(vertices.length, indices.length);
+		for(Vertex3D v : vertices)
+		{
+			builder.addVertex(v.getX(), v.getY(), v.getZ(), v.getS(), v.getT(), v.getNormalX(), v.getNormalY(), v.getNormalZ());
+		}
+		for(int i = 0; i < indices.length; i += 3)
+		{
+			builder.addTriangle(indices[i], indices[i + 1], indices[i + 2]);
+		}
+		return builder.build();
+	}
+	
+	private void runGPU()
+	{
+		try
+		{
+			GLProfile profile = GLProfile.get(GLProfile.GL4);
+			GLCapabilities capabilities = new GLCapabilities(profile);
+			capabilities.setOnscreen(false);
+			GLAutoDrawable drawable = GLDrawableFactory.getFactory(profile).createOffscreenAutoDrawable(null, capabilities, null, TARGET_SIZE, TARGET_SIZE);
+			drawable.addGLEventListener(this);
+			drawable.display();
+			drawable.destroy();
+		}
+		catch(GLException | LinkageError e)
+		{
+			System.err.println("Skipping GPU timing: " + e.getMessage());
+		}
+	}
+	
+	public void init(GLAutoDrawable drawable)
+	{
+	}
+	
+	public void display(GLAutoDrawable drawable)
+	{
+		GL4 gl = drawable.getGL().getGL4();
+		int program = createShaderProgram(gl);
+		gl.glUseProgram(program);
+		gl.glEnable(GL_DEPTH_TEST);
+		gl.glEnable(GL_CULL_FACE);
+		gl.glFrontFace(GL_CCW);
+		
+		int[] vao = new int[1];
+		int[] buffers = new int[2];
+		int[] query = new int[1];
+		gl.glGenVertexArrays(1, vao, 0);
+		gl.glBindVertexArray(vao[0]);
+		gl.glGenQueries(1, query, 0);
+		
+		for(Map.Entry<String, Mesh> entry : m_meshes.entrySet())
+		{
+			Mesh mesh = entry.getValue();
+			gl.glGenBuffers(buffers.length, buffers, 0);
+			
+			FloatBuffer vertBuf = Buffers.newDirectFloatBuffer(mesh.getPositions());
+			gl.glBindBuffer(GL_ARRAY_BUFFER, buffers[0]);
+			gl.glBufferData(GL_ARRAY_BUFFER, vertBuf.limit() * 4, vertBuf, GL_STATIC_DRAW);
+			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+			gl.glEnableVertexAttribArray(0);
+			
+			IntBuffer indexBuf = Buffers.newDirectIntBuffer(mesh.getIndices());
+			gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, buffers[1]);
+			gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuf.limit() * 4, indexBuf, GL_STATIC_DRAW);
+			
+			// Warm up once, then time the whole batch of draws.
+			gl.glDrawElements(GL_TRIANGLES, mesh.getIndexCount(), GL_UNSIGNED_INT, 0);
+			gl.glFinish();
+			gl.glBeginQuery(GL_TIME_ELAPSED, query[0]);
+			for(int i = 0; i < DRAWS_PER_MESH; i++)
+			{
+				gl.glDrawElements(GL_TRIANGLES, mesh.getIndexCount(), GL_UNSIGNED_INT, 0);
+			}
+			gl.glEndQuery(GL_TIME_ELAPSED);
+			
+			long[] elapsed = new long[1];
+			gl.glGetQueryObjecti64v(query[0], GL_QUERY_RESULT, elapsed, 0);
+			m_drawTimes.put(entry.getKey(), elapsed[0] / 1e3 / DRAWS_PER_MESH);
+			
+			gl.glDeleteBuffers(buffers.length, buffers, 0);
+		}
+		
+		gl.glDeleteQueries(1, query, 0);
+		gl.glDeleteVertexArrays(1, vao, 0);
+		gl.glDeleteProgram(program);
+	}
+	
+	public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height)
+	{
+	}
+	
+	public void dispose(GLAutoDrawable drawable)
+	{
+	}
+	
+	private static int createShaderProgram(GL4 gl)
+	{
+		int vShader = gl.glCreateShader(GL_VERTEX_SHADER);
+		int fShader = gl.glCreateShader(GL_FRAGMENT_SHADER);
+		
+		gl.glShaderSource(vShader, VERTEX_SHADER.length, VERTEX_SHADER, null, 0);
+		gl.glShaderSource(fShader, FRAGMENT_SHADER.length, FRAGMENT_SHADER, null, 0);
+		
+		gl.glCompileShader(vShader);
+		gl.glCompileShader(fShader);
+		
+		int vfprogram = gl.glCreateProgram();
+		gl.glAttachShader(vfprogram, vShader);
+		gl.glAttachShader(vfprogram, fShader);
+		gl.glLinkProgram(vfprogram);
+		return vfprogram;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package project2;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive-array accumulator used by {@link MeshGenerator} to emit vertices and triangles without allocating
+ * a vertex object per vertex. Tangents are derived from the texture coordinates when the mesh is built.
+ */
+class MeshBuilder
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private float[] m_positions;
+	private float[] m_texCoords;
+	private float[] m_normals;
+	private int[] m_indices;
+	private int m_vertexCount;
+	private int m_indexCount;
+	
+	MeshBuilder(int expectedVertices, int expectedIndices)
+	{
+		m_positions = new float[Math.max(expectedVertices, 1) * 3];
+		m_texCoords = new float[Math.max(expectedVertices, 1) * 2];
+		m_normals = new float[Math.max(expectedVertices, 1) * 3];
+		m_indices = new int[Math.max(expectedIndices, 3)];
+	}
+	
+	int addVertex(double x, double y, double z, double s, double t, double nx, double ny, double nz)
+	{
+		if(m_vertexCount * 3 == m_positions.length)
+		{
+			m_positions = Arrays.copyOf(m_positions, m_positions.length * 2);
+			m_texCoords = Arrays.copyOf(m_texCoords, m_texCoords.length * 2);
+			m_normals = Arrays.copyOf(m_normals, m_normals.length * 2);
+		}
+		
+		m_positions[m_vertexCount * 3] = (float) x;
+		m_positions[m_vertexCount * 3 + 1] = (float) y;
+		m_positions[m_vertexCount * 3 + 2] = (float) z;
+		m_texCoords[m_vertexCount * 2] = (float) s;
+		m_texCoords[m_vertexCount * 2 + 1] = (float) t;
+		m_normals[m_vertexCount * 3] = (float) nx;
+		m_normals[m_vertexCount * 3 + 1] = (float) ny;
+		m_normals[m_vertexCount * 3 + 2] = (float) nz;
+		return m_vertexCount++;
+	}
+	
+	void addTriangle(int a, int b, int c)
+	{
+		if(m_indexCount + 3 > m_indices.length)
+		{
+			m_indices = Arrays.copyOf(m_indices, m_indices.length * 2);
+		}
+		
+		m_indices[m_indexCount++] = a;
+		m_indices[m_indexCount++] = b;
+		m_indices[m_indexCount++] = c;
+	}
+	
+	/**
+	 * Adds the quad (a, b, c, d), given in counter-clockwise order, as two triangles.
+	 */
+	void addQuad(int a, int b, int c, int d)
+	{
+		addTriangle(a, b, c);
+		addTriangle(a, c, d);
+	}
+	
+	int getVertexCount()
+	{
+		return m_vertexCount;
+	}
+	
+	/**
+	 * Appends a copy of an existing vertex and returns its index.
+	 */
+	int copyVertex(int vertex)
+	{
+		return addVertex(m_positions[vertex * 3], m_positions[vertex * 3 + 1], m_positions[vertex * 3 + 2], m_texCoords[vertex * 2],
+				m_texCoords[vertex * 2 + 1], m_normals[vertex * 3], m_normals[vertex * 3 + 1], m_normals[vertex * 3 + 2]);
+	}
+	
+	float getS(int vertex)
+	{
+		return m_texCoords[vertex * 2];
+	}
+	
+	void setS(int vertex, double s)
+	{
+		m_texCoords[vertex * 2] = (float) s;
+	}
+	
+	Mesh build()
+	{
+		float[] positions = Arrays.copyOf(m_positions, m_vertexCount * 3);
+		float[] texCoords = Arrays.copyOf(m_texCoords, m_vertexCount * 2);
+		float[] normals = Arrays.copyOf(m_normals, m_vertexCount * 3);
+		int[] indices = Arrays.copyOf(m_indices, m_indexCount);
+		return new Mesh(positions, texCoords, normals, computeTangents(positions, texCoords, normals, indices), indices);
+	}
+	
+	/**
+	 * Accumulates per-triangle tangent and bitangent directions from the texture coordinates, then orthogonalizes the
+	 * tangent against the vertex normal (Lengyel's method).
+	 */
+	private static float[] computeTangents(float[] positions, float[] texCoords, float[] normals, int[] indices)
+	{
+		int vertexCount = positions.length / 3;
+		float[] tan = new float[vertexCount * 3];
+		float[] bitan = new float[vertexCount * 3];
+		
+		for(int i = 0; i < indices.length; i += 3)
+		{
+			int a = indices[i], b = indices[i + 1], c = indices[i + 2];
+			
+			float e1x = positions[b * 3] - positions[a * 3];
+			float e1y = positions[b * 3 + 1] - positions[a * 3 + 1];
+			float e1z = positions[b * 3 + 2] - positions[a * 3 + 2];
+			float e2x = positions[c * 3] - positions[a * 3];
+			float e2y = positions[c * 3 + 1] - positions[a * 3 + 1];
+			float e2z = positions[c * 3 + 2] - positions[a * 3 + 2];
+			float du1 = texCoords[b * 2] - texCoords[a * 2];
+			float dv1 = texCoords[b * 2 + 1] - texCoords[a * 2 + 1];
+			float du2 = texCoords[c * 2] - texCoords[a * 2];
+			float dv2 = texCoords[c * 2 + 1] - texCoords[a * 2 + 1];
+			
+			float det = du1 * dv2 - du2 * dv1;
+			if(Math.abs(det) < 1e-12f)
+			{
+				continue;
+			}
+			float r = 1.0f / det;
+			
+			float tx = (dv2 * e1x - dv1 * e2x) * r;
+			float ty = (dv2 * e1y - dv1 * e2y) * r;
+			float tz = (dv2 * e1z - dv1 * e2z) * r;
+			float bx = (du1 * e2x - du2 * e1x) * r;
+			float by = (du1 * e2y - du2 * e1y) * r;
+			float bz = (du1 * e2z - du2 * e1z) * r;
+			
+			accumulate(tan, a, tx, ty, tz);
+			accumulate(tan, b, tx, ty, tz);
+			accumulate(tan, c, tx, ty, tz);
+			accumulate(bitan, a, bx, by, bz);
+			accumulate(bitan, b, bx, by, bz);
+			accumulate(bitan, c, bx, by, bz);
+		}
+		
+		float[] tangents = new float[vertexCount * 4];
+		for(int v = 0; v < vertexCount; v++)
+		{
+			float nx = normals[v * 3], ny = normals[v * 3 + 1], nz = normals[v * 3 + 2];
+			float tx = tan[v * 3], ty = tan[v * 3 + 1], tz = tan[v * 3 + 2];
+			
+			// Gram-Schmidt orthogonalize against the normal.
+			float nDotT = nx * tx + ny * ty + nz * tz;
+			tx -= nx * nDotT;
+			ty -= ny * nDotT;
+			tz -= nz * nDotT;
+			float length = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+			if(length < 1e-12f)
+			{
+				// Degenerate texture mapping (e.g. a pole); pick any direction perpendicular to the normal.
+				if(Math.abs(nx) < 0.9f)
+				{
+					tx = 0.0f;
+					ty = nz;
+					tz = -ny;
+				}
+				else
+				{
+					tx = -nz;
+					ty = 0.0f;
+					tz = nx;
+				}
+				length = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+			}
+			tx /= length;
+			ty /= length;
+			tz /= length;
+			
+			// Handedness: whether (N x T) points along the accumulated bitangent.
+			float cx = ny * tz - nz * ty;
+			float cy = nz * tx - nx * tz;
+			float cz = nx * ty - ny * tx;
+			float w = (cx * bitan[v * 3] + cy * bitan[v * 3 + 1] + cz * bitan[v * 3 + 2]) < 0.0f ? -1.0f : 1.0f;
+			
+			tangents[v * 4] = tx;
+			tangents[v * 4 + 1] = ty;
+			tangents[v * 4 + 2] = tz;
+			tangents[v * 4 + 3] = w;
+		}
+		return tangents;
+	}
+	
+	private static void accumulate(float[] values, int vertex, float x, float y, float z)
+	{
+		values[vertex * 3] += x;
+		values[vertex * 3 + 1] += y;
+		values[vertex * 3 + 2] += z;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package project2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe cache of generated meshes keyed by their generation parameters, so identical shapes are only built once
+ * and shared between bodies.
+ * <p>
+ * Every mesh entering the cache is run through {@link MeshOptimizer}, and the ACMR before and after is reported.
+ */
+public class MeshCache
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final Map<String, Mesh> m_meshes;
+	
+	public MeshCache()
+	{
+		m_meshes = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Returns the mesh cached under the given key, generating it on first use.
+	 */
+	public Mesh get(String key, Supplier<Mesh> generator)
+	{
+		return m_meshes.computeIfAbsent(key, k -> optimize(k, generator.get()));
+	}
+	
+	/**
+	 * Generates every missing mesh of a batch in parallel on the common fork-join pool.
+	 */
+	public void preload(Map<String, Supplier<Mesh>> batch)
+	{
+		batch.entrySet().parallelStream().forEach(entry -> get(entry.getKey(), entry.getValue()));
+	}
+	
+	public Mesh getPrism(int sides, double height)
+	{
+		return get(prismKey(sides, height), () -> MeshGenerator.prism(sides, height));
+	}
+	
+	public Mesh getCylinder(int segments, double height)
+	{
+		return get(cylinderKey(segments, height), () -> MeshGenerator.cylinder(segments, height));
+	}
+	
+	public Mesh getTorus(double majorRadius, double minorRadius, int rings, int sides)
+	{
+		return get(torusKey(majorRadius, minorRadius, rings, sides), () -> MeshGenerator.torus(majorRadius, minorRadius, rings, sides));
+	}
+	
+	public Mesh getIcosphere(int subdivisions)
+	{
+		return get(icosphereKey(subdivisions), () -> MeshGenerator.icosphere(subdivisions));
+	}
+	
+	private static Mesh optimize(String key, Mesh mesh)
+	{
+		Mesh optimized = MeshOptimizer.optimize(mesh);
+		System.out.printf("Mesh %s: %d triangles, ACMR %.3f -> %.3f%n", key, optimized.getTriangleCount(),
+				MeshOptimizer.computeACMR(mesh.getIndices(), MeshOptimizer.DEFAULT_CACHE_SIZE),
+				MeshOptimizer.computeACMR(optimized.getIndices(), MeshOptimizer.DEFAULT_CACHE_SIZE));
+		return optimized;
+	}
+	
+	public static String prismKey(int sides, double height)
+	{
+		return "prism:" + sides + ":" + height;
+	}
+	
+	public static String cylinderKey(int segments, double height)
+	{
+		return "cylinder:" + segments + ":" + height;
+	}
+	
+	public static String torusKey(double majorRadius, double minorRadius, int rings, int sides)
+	{
+		return "torus:" + majorRadius + ":" + minorRadius + ":" + rings + ":" + sides;
+	}
+	
+	public static String icosphereKey(int subdivisions)
+	{
+		return "icosphere:" + subdivisions;
+	}
+	
+	public int size()
+	{
+		return m_meshes.size();
+	}
+	
+	public void clear()
+	{
+		m_meshes.clear();
+	}
+}
\ No newline at end of file
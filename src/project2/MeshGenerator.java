@@ -0,0 +1,340 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parametric mesh generators. Every shape is written directly into primitive arrays through a {@link MeshBuilder} and
+ * comes with normals and tangents. Triangles are wound counter-clockwise when seen from outside the shape.
+ * <p>
+ * Prisms and cylinders are centered on the origin with their axis along z and a circumradius of 1, matching the
+ * original hand-built pentagonal prism (first corner at +y, corners ordered clockwise when seen from +z).
+ */
+public final class MeshGenerator
+{
+	private MeshGenerator()
+	{
+	}
+	
+	/**
+	 * Generates a flat-shaded N-gon prism. Each side face gets its own vertices so that normals stay sharp.
+	 *
+	 * @param sides  number of sides of the base polygon (at least 3)
+	 * @param height distance between the two caps
+	 */
+	public static Mesh prism(int sides, double height)
+	{
+		if(sides < 3)
+		{
+			throw new IllegalArgumentException("A prism needs at least 3 sides: " + sides);
+		}
+		
+		MeshBuilder builder = new MeshBuilder(2 * (sides + 1) + 4 * sides, 12 * sides);
+		addCap(builder, sides, height / 2, 1.0);
+		addCap(builder, sides, -height / 2, -1.0);
+		
+		for(int k = 0; k < sides; k++)
+		{
+			double a0 = angle(k, sides);
+			double a1 = angle(k + 1, sides);
+			double mid = (a0 + a1) / 2;
+			double nx = Math.sin(mid), ny = Math.cos(mid);
+			double s0 = (double) k / sides, s1 = (double) (k + 1) / sides;
+			
+			int bottom0 = builder.addVertex(Math.sin(a0), Math.cos(a0), -height / 2, s0, 0, nx, ny, 0);
+			int top0 = builder.addVertex(Math.sin(a0), Math.cos(a0), height / 2, s0, 1, nx, ny, 0);
+			int top1 = builder.addVertex(Math.sin(a1), Math.cos(a1), height / 2, s1, 1, nx, ny, 0);
+			int bottom1 = builder.addVertex(Math.sin(a1), Math.cos(a1), -height / 2, s1, 0, nx, ny, 0);
+			builder.addQuad(bottom0, top0, top1, bottom1);
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Generates a smooth-shaded capped cylinder. The side wall shares vertices between segments and duplicates the
+	 * seam column so the texture wraps once around.
+	 *
+	 * @param segments number of segments around the axis (at least 3)
+	 * @param height   distance between the two caps
+	 */
+	public static Mesh cylinder(int segments, double height)
+	{
+		if(segments < 3)
+		{
+			throw new IllegalArgumentException("A cylinder needs at least 3 segments: " + segments);
+		}
+		
+		MeshBuilder builder = new MeshBuilder(2 * (segments + 1) + 2 * (segments + 1), 12 * segments);
+		addCap(builder, segments, height / 2, 1.0);
+		addCap(builder, segments, -height / 2, -1.0);
+		
+		int first = builder.getVertexCount();
+		for(int k = 0; k <= segments; k++)
+		{
+			double a = angle(k, segments);
+			double s = (double) k / segments;
+			builder.addVertex(Math.sin(a), Math.cos(a), -height / 2, s, 0, Math.sin(a), Math.cos(a), 0);
+			builder.addVertex(Math.sin(a), Math.cos(a), height / 2, s, 1, Math.sin(a), Math.cos(a), 0);
+		}
+		for(int k = 0; k < segments; k++)
+		{
+			int bottom0 = first + 2 * k;
+			builder.addQuad(bottom0, bottom0 + 1, bottom0 + 3, bottom0 + 2);
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Generates a torus around the y axis.
+	 *
+	 * @param majorRadius distance from the center of the torus to the center of the tube
+	 * @param minorRadius radius of the tube
+	 * @param rings       number of segments around the y axis (at least 3)
+	 * @param sides       number of segments around the tube (at least 3)
+	 */
+	public static Mesh torus(double majorRadius, double minorRadius, int rings, int sides)
+	{
+		if(rings < 3 || sides < 3)
+		{
+			throw new IllegalArgumentException("A torus needs at least 3 rings and 3 sides: " + rings + ", " + sides);
+		}
+		
+		MeshBuilder builder = new MeshBuilder((rings + 1) * (sides + 1), rings * sides * 6);
+		for(int i = 0; i <= rings; i++)
+		{
+			double u = 2 * Math.PI * i / rings;
+			double cu = Math.cos(u), su = Math.sin(u);
+			for(int j = 0; j <= sides; j++)
+			{
+				double v = 2 * Math.PI * j / sides;
+				double cv = Math.cos(v), sv = Math.sin(v);
+				double r = majorRadius + minorRadius * cv;
+				builder.addVertex(r * cu, minorRadius * sv, -r * su, (double) i / rings, (double) j / sides, cv * cu, sv, -cv * su);
+			}
+		}
+		for(int i = 0; i < rings; i++)
+		{
+			for(int j = 0; j < sides; j++)
+			{
+				int a = i * (sides + 1) + j;
+				int b = (i + 1) * (sides + 1) + j;
+				builder.addQuad(a, b, b + 1, a + 1);
+			}
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Generates a unit geodesic sphere by repeatedly splitting the faces of an icosahedron. Unlike a UV sphere, the
+	 * triangles are close to uniform in size, so no triangles are wasted around the poles.
+	 * <p>
+	 * Texture coordinates use the same equirectangular mapping as {@code graphicslib3D.shape.Sphere}. Vertices shared
+	 * between faces are welded through a midpoint cache, and are only duplicated where the texture seam or a pole needs
+	 * a different texture coordinate.
+	 *
+	 * @param subdivisions number of times each triangle is split into four (0 gives the plain icosahedron)
+	 */
+	public static Mesh icosphere(int subdivisions)
+	{
+		if(subdivisions < 0)
+		{
+			throw new IllegalArgumentException("Subdivision level cannot be negative: " + subdivisions);
+		}
+		
+		// Icosahedron with a vertex on each pole so that only those two vertices have an undefined longitude.
+		int faceCount = 20 << (2 * subdivisions);
+		int vertexCount = 10 * (1 << (2 * subdivisions)) + 2;
+		double[] positions = new double[vertexCount * 3];
+		double ringY = 1 / Math.sqrt(5);
+		double ringRadius = 2 / Math.sqrt(5);
+		setPosition(positions, 0, 0, 1, 0);
+		for(int k = 0; k < 5; k++)
+		{
+			double upper = 2 * Math.PI * k / 5;
+			double lower = upper + Math.PI / 5;
+			setPosition(positions, 1 + k, ringRadius * Math.cos(upper), ringY, ringRadius * Math.sin(upper));
+			setPosition(positions, 6 + k, ringRadius * Math.cos(lower), -ringY, ringRadius * Math.sin(lower));
+		}
+		setPosition(positions, 11, 0, -1, 0);
+		
+		int[] faces = new int[faceCount * 3];
+		int f = 0;
+		for(int k = 0; k < 5; k++)
+		{
+			int u0 = 1 + k, u1 = 1 + (k + 1) % 5;
+			int l0 = 6 + k, l1 = 6 + (k + 1) % 5;
+			f = setFace(faces, f, 0, u1, u0);
+			f = setFace(faces, f, u0, u1, l0);
+			f = setFace(faces, f, u1, l1, l0);
+			f = setFace(faces, f, 11, l0, l1);
+		}
+		
+		// Split every triangle into four, welding the new edge midpoints shared by neighboring triangles.
+		int used = 12;
+		for(int level = 0; level < subdivisions; level++)
+		{
+			Map<Long, Integer> midpoints = new HashMap<>();
+			int[] split = new int[f * 4];
+			int s = 0;
+			for(int i = 0; i < f; i += 3)
+			{
+				int a = faces[i], b = faces[i + 1], c = faces[i + 2];
+				int ab = midpoint(positions, midpoints, a, b, used + midpoints.size());
+				int bc = midpoint(positions, midpoints, b, c, used + midpoints.size());
+				int ca = midpoint(positions, midpoints, c, a, used + midpoints.size());
+				s = setFace(split, s, a, ab, ca);
+				s = setFace(split, s, b, bc, ab);
+				s = setFace(split, s, c, ca, bc);
+				s = setFace(split, s, ab, bc, ca);
+			}
+			used += midpoints.size();
+			System.arraycopy(split, 0, faces, 0, s);
+			f = s;
+		}
+		
+		MeshBuilder builder = new MeshBuilder(vertexCount + vertexCount / 8, faceCount * 3);
+		for(int v = 0; v < vertexCount; v++)
+		{
+			double x = positions[v * 3], y = positions[v * 3 + 1], z = positions[v * 3 + 2];
+			builder.addVertex(x, y, z, longitude(x, z), Math.acos(Math.max(-1, Math.min(1, -y))) / Math.PI, x, y, z);
+		}
+		
+		// Triangles straddling the seam get copies of their low-longitude vertices shifted by one full turn, and pole
+		// vertices get a per-triangle copy placed at the longitude of the opposite edge. The first triangle at each pole
+		// takes the original vertex so that it is not left unreferenced.
+		int[] seamCopies = new int[vertexCount];
+		Arrays.fill(seamCopies, -1);
+		boolean[] poleTaken = new boolean[vertexCount];
+		int[] tri = new int[3];
+		for(int i = 0; i < f; i += 3)
+		{
+			System.arraycopy(faces, i, tri, 0, 3);
+			boolean wraps = false;
+			for(int j = 0; j < 3; j++)
+			{
+				for(int k = 0; k < 3; k++)
+				{
+					if(!isPole(tri[j]) && !isPole(tri[k]) && builder.getS(tri[j]) - builder.getS(tri[k]) > 0.5f)
+					{
+						wraps = true;
+					}
+				}
+			}
+			if(wraps)
+			{
+				for(int j = 0; j < 3; j++)
+				{
+					int v = tri[j];
+					if(!isPole(v) && builder.getS(v) < 0.5f)
+					{
+						if(seamCopies[v] < 0)
+						{
+							seamCopies[v] = builder.copyVertex(v);
+							builder.setS(seamCopies[v], builder.getS(v) + 1);
+						}
+						tri[j] = seamCopies[v];
+					}
+				}
+			}
+			for(int j = 0; j < 3; j++)
+			{
+				if(isPole(tri[j]))
+				{
+					int pole = poleTaken[tri[j]] ? builder.copyVertex(tri[j]) : tri[j];
+					poleTaken[tri[j]] = true;
+					builder.setS(pole, (builder.getS(tri[(j + 1) % 3]) + builder.getS(tri[(j + 2) % 3])) / 2);
+					tri[j] = pole;
+				}
+			}
+			builder.addTriangle(tri[0], tri[1], tri[2]);
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Emits a triangle-fan cap of a prism or cylinder at height z, facing +z when normalZ is positive.
+	 */
+	private static void addCap(MeshBuilder builder, int sides, double z, double normalZ)
+	{
+		int center = builder.addVertex(0, 0, z, 0.5, 0.5, 0, 0, normalZ);
+		int first = builder.getVertexCount();
+		for(int k = 0; k < sides; k++)
+		{
+			double a = angle(k, sides);
+			double x = Math.sin(a), y = Math.cos(a);
+			builder.addVertex(x, y, z, 0.5 + x / 2, 0.5 + y / 2, 0, 0, normalZ);
+		}
+		for(int k = 0; k < sides; k++)
+		{
+			int current = first + k;
+			int next = first + (k + 1) % sides;
+			if(normalZ > 0)
+			{
+				builder.addTriangle(center, next, current);
+			}
+			else
+			{
+				builder.addTriangle(center, current, next);
+			}
+		}
+	}
+	
+	private static double angle(int corner, int sides)
+	{
+		return 2 * Math.PI * corner / sides;
+	}
+	
+	/**
+	 * Longitude of a point on the unit sphere as a texture coordinate in [0, 1), measured the same way as
+	 * {@code graphicslib3D.shape.Sphere}: s = 0 on the -x axis, increasing towards +z.
+	 */
+	private static double longitude(double x, double z)
+	{
+		double s = Math.atan2(z, -x) / (2 * Math.PI);
+		return s < 0 ? s + 1 : s;
+	}
+	
+	private static boolean isPole(int vertex)
+	{
+		// The poles are the first and last of the original icosahedron vertices.
+		return vertex == 0 || vertex == 11;
+	}
+	
+	private static void setPosition(double[] positions, int vertex, double x, double y, double z)
+	{
+		positions[vertex * 3] = x;
+		positions[vertex * 3 + 1] = y;
+		positions[vertex * 3 + 2] = z;
+	}
+	
+	private static int setFace(int[] faces, int offset, int a, int b, int c)
+	{
+		faces[offset] = a;
+		faces[offset + 1] = b;
+		faces[offset + 2] = c;
+		return offset + 3;
+	}
+	
+	/**
+	 * Returns the vertex halfway between a and b, pushed out onto the unit sphere, creating it at index next if this
+	 * edge has not been split yet.
+	 */
+	private static int midpoint(double[] positions, Map<Long, Integer> midpoints, int a, int b, int next)
+	{
+		long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+		Integer existing = midpoints.get(key);
+		if(existing != null)
+		{
+			return existing;
+		}
+		
+		double x = positions[a * 3] + positions[b * 3];
+		double y = positions[a * 3 + 1] + positions[b * 3 + 1];
+		double z = positions[a * 3 + 2] + positions[b * 3 + 2];
+		double length = Math.sqrt(x * x + y * y + z * z);
+		setPosition(positions, next, x / length, y / length, z / length);
+		midpoints.put(key, next);
+		return next;
+	}
+}
\ No newline at end of file
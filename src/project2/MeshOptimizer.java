@@ -0,0 +1,302 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load-time reordering of indexed meshes for the GPU.
+ * <p>
+ * Triangles are reordered for post-transform vertex cache locality with Tipsify (Sander, Nehab and Barczak, "Fast
+ * Triangle Reordering for Vertex Locality and Reduced Overdraw", 2007). The clusters Tipsify produces are then sorted
+ * so that outward-facing clusters are drawn first, which reduces overdraw from any viewpoint. Finally vertices are
+ * renumbered in first-use order so that vertex fetches walk through memory linearly.
+ */
+public final class MeshOptimizer
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final int DEFAULT_CACHE_SIZE = 16;
+	
+	private MeshOptimizer()
+	{
+	}
+	
+	/**
+	 * Returns a copy of the mesh with triangles and vertices reordered. The geometry itself is unchanged.
+	 */
+	public static Mesh optimize(Mesh mesh)
+	{
+		List<int[]> clusters = new ArrayList<>();
+		int[] indices = tipsify(mesh.getIndices(), mesh.getVertexCount(), DEFAULT_CACHE_SIZE, clusters);
+		indices = sortClusters(indices, clusters, mesh.getPositions());
+		return reorderVertices(mesh, indices);
+	}
+	
+	/**
+	 * Simulates a FIFO post-transform vertex cache and returns the average cache miss ratio, i.e. the number of vertex
+	 * shader invocations per triangle. 0.5 is the optimum for large regular meshes and 3 the worst case.
+	 */
+	public static double computeACMR(int[] indices, int cacheSize)
+	{
+		if(indices.length == 0)
+		{
+			return 0.0;
+		}
+		
+		int[] fifo = new int[cacheSize];
+		Arrays.fill(fifo, -1);
+		int head = 0;
+		int misses = 0;
+		for(int index : indices)
+		{
+			boolean hit = false;
+			for(int entry : fifo)
+			{
+				if(entry == index)
+				{
+					hit = true;
+					break;
+				}
+			}
+			if(!hit)
+			{
+				fifo[head] = index;
+				head = (head + 1) % cacheSize;
+				misses++;
+			}
+		}
+		return (double) misses / (indices.length / 3);
+	}
+	
+	/**
+	 * Reorders triangles so that consecutive triangles reuse recently transformed vertices.
+	 *
+	 * @param clusters receives the [start, end) index ranges of the runs between dead ends
+	 * @return the reordered index list, the same length as the input
+	 */
+	static int[] tipsify(int[] indices, int vertexCount, int cacheSize, List<int[]> clusters)
+	{
+		int triangleCount = indices.length / 3;
+		if(triangleCount == 0)
+		{
+			return indices.clone();
+		}
+		
+		// Vertex-triangle adjacency in compressed row form.
+		int[] liveTriangles = new int[vertexCount];
+		for(int index : indices)
+		{
+			liveTriangles[index]++;
+		}
+		int[] adjacencyOffsets = new int[vertexCount + 1];
+		for(int v = 0; v < vertexCount; v++)
+		{
+			adjacencyOffsets[v + 1] = adjacencyOffsets[v] + liveTriangles[v];
+		}
+		int[] adjacency = new int[indices.length];
+		int[] fill = Arrays.copyOf(adjacencyOffsets, vertexCount);
+		for(int i = 0; i < indices.length; i++)
+		{
+			adjacency[fill[indices[i]]++] = i / 3;
+		}
+		
+		int[] cacheTime = new int[vertexCount];
+		boolean[] emitted = new boolean[triangleCount];
+		int[] deadEndStack = new int[indices.length];
+		int deadEndTop = 0;
+		int[] candidates = new int[indices.length];
+		int timeStamp = cacheSize + 1;
+		int cursor = 0;
+		int fanning = 0;
+		
+		int[] output = new int[indices.length];
+		int outputCount = 0;
+		int clusterStart = 0;
+		
+		while(fanning >= 0)
+		{
+			int candidateCount = 0;
+			
+			// Emit every remaining triangle around the fanning vertex.
+			for(int a = adjacencyOffsets[fanning]; a < adjacencyOffsets[fanning + 1]; a++)
+			{
+				int triangle = adjacency[a];
+				if(emitted[triangle])
+				{
+					continue;
+				}
+				emitted[triangle] = true;
+				for(int k = 0; k < 3; k++)
+				{
+					int v = indices[triangle * 3 + k];
+					output[outputCount++] = v;
+					deadEndStack[deadEndTop++] = v;
+					candidates[candidateCount++] = v;
+					liveTriangles[v]--;
+					if(timeStamp - cacheTime[v] > cacheSize)
+					{
+						cacheTime[v] = timeStamp++;
+					}
+				}
+			}
+			
+			// Prefer the candidate that is still in the cache after its remaining triangles are emitted, and among
+			// those the one that has been in the cache the longest.
+			int next = -1;
+			int best = -1;
+			for(int c = 0; c < candidateCount; c++)
+			{
+				int v = candidates[c];
+				if(liveTriangles[v] > 0)
+				{
+					int priority = 0;
+					if(timeStamp - cacheTime[v] + 2 * liveTriangles[v] <= cacheSize)
+					{
+						priority = timeStamp - cacheTime[v];
+					}
+					if(priority > best)
+					{
+						best = priority;
+						next = v;
+					}
+				}
+			}
+			
+			if(next == -1)
+			{
+				// Dead end: the current cluster is finished. Continue from the most recently referenced vertex that
+				// still has triangles left, or else the next one in input order.
+				if(outputCount > clusterStart)
+				{
+					clusters.add(new int[] {clusterStart, outputCount});
+					clusterStart = outputCount;
+				}
+				while(next == -1 && deadEndTop > 0)
+				{
+					int v = deadEndStack[--deadEndTop];
+					if(liveTriangles[v] > 0)
+					{
+						next = v;
+					}
+				}
+				while(next == -1 && cursor < vertexCount)
+				{
+					if(liveTriangles[cursor] > 0)
+					{
+						next = cursor;
+					}
+					cursor++;
+				}
+			}
+			fanning = next;
+		}
+		return output;
+	}
+	
+	/**
+	 * Sorts clusters so that those facing away from the mesh centroid are drawn first. Such clusters are likely to
+	 * occlude the rest of the mesh, so this reduces overdraw independently of the viewpoint.
+	 */
+	static int[] sortClusters(int[] indices, List<int[]> clusters, float[] positions)
+	{
+		if(clusters.size() < 2)
+		{
+			return indices;
+		}
+		
+		double[] meshCentroid = new double[3];
+		for(int v = 0; v < positions.length; v += 3)
+		{
+			meshCentroid[0] += positions[v];
+			meshCentroid[1] += positions[v + 1];
+			meshCentroid[2] += positions[v + 2];
+		}
+		for(int k = 0; k < 3; k++)
+		{
+			meshCentroid[k] /= positions.length / 3;
+		}
+		
+		// Area-weighted centroid and summed normal of each cluster.
+		double[] keys = new double[clusters.size()];
+		for(int c = 0; c < clusters.size(); c++)
+		{
+			double cx = 0, cy = 0, cz = 0, nx = 0, ny = 0, nz = 0, area = 0;
+			for(int i = clusters.get(c)[0]; i < clusters.get(c)[1]; i += 3)
+			{
+				int a = indices[i] * 3, b = indices[i + 1] * 3, d = indices[i + 2] * 3;
+				double e1x = positions[b] - positions[a], e1y = positions[b + 1] - positions[a + 1], e1z = positions[b + 2] - positions[a + 2];
+				double e2x = positions[d] - positions[a], e2y = positions[d + 1] - positions[a + 1], e2z = positions[d + 2] - positions[a + 2];
+				double fx = e1y * e2z - e1z * e2y, fy = e1z * e2x - e1x * e2z, fz = e1x * e2y - e1y * e2x;
+				double triangleArea = Math.sqrt(fx * fx + fy * fy + fz * fz);
+				cx += triangleArea * (positions[a] + positions[b] + positions[d]) / 3;
+				cy += triangleArea * (positions[a + 1] + positions[b + 1] + positions[d + 1]) / 3;
+				cz += triangleArea * (positions[a + 2] + positions[b + 2] + positions[d + 2]) / 3;
+				nx += fx;
+				ny += fy;
+				nz += fz;
+				area += triangleArea;
+			}
+			if(area > 0)
+			{
+				keys[c] = (cx / area - meshCentroid[0]) * nx + (cy / area - meshCentroid[1]) * ny + (cz / area - meshCentroid[2]) * nz;
+			}
+		}
+		
+		Integer[] order = new Integer[clusters.size()];
+		for(int c = 0; c < order.length; c++)
+		{
+			order[c] = c;
+		}
+		Arrays.sort(order, (x, y) -> Double.compare(keys[y], keys[x]));
+		
+		int[] sorted = new int[indices.length];
+		int next = 0;
+		for(int c : order)
+		{
+			int[] range = clusters.get(c);
+			System.arraycopy(indices, range[0], sorted, next, range[1] - range[0]);
+			next += range[1] - range[0];
+		}
+		return sorted;
+	}
+	
+	/**
+	 * Renumbers vertices in the order they are first referenced and rewrites the attribute arrays to match.
+	 */
+	static Mesh reorderVertices(Mesh mesh, int[] indices)
+	{
+		int vertexCount = mesh.getVertexCount();
+		int[] remap = new int[vertexCount];
+		Arrays.fill(remap, -1);
+		int next = 0;
+		int[] newIndices = new int[indices.length];
+		for(int i = 0; i < indices.length; i++)
+		{
+			if(remap[indices[i]] < 0)
+			{
+				remap[indices[i]] = next++;
+			}
+			newIndices[i] = remap[indices[i]];
+		}
+		
+		// Unreferenced vertices are dropped.
+		float[] positions = new float[next * 3];
+		float[] texCoords = new float[next * 2];
+		float[] normals = new float[next * 3];
+		float[] tangents = new float[next * 4];
+		for(int v = 0; v < vertexCount; v++)
+		{
+			int target = remap[v];
+			if(target >= 0)
+			{
+				System.arraycopy(mesh.getPositions(), v * 3, positions, target * 3, 3);
+				System.arraycopy(mesh.getTexCoords(), v * 2, texCoords, target * 2, 2);
+				System.arraycopy(mesh.getNormals(), v * 3, normals, target * 3, 3);
+				System.arraycopy(mesh.getTangents(), v * 4, tangents, target * 4, 4);
+			}
+		}
+		return new Mesh(positions, texCoords, normals, tangents, newIndices);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,225 @@
+package project2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL4;
+import graphicslib3D.Matrix3D;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Draws several views of the scene in a single pass over the bodies.
+ * <p>
+ * Every view's camera, projection and rectangle of the render target are passed as uniform arrays, and each draw is
+ * instanced once per view that should see it: a bit mask of visible views, set per draw, maps each instance to its
+ * view. The vertex shader transforms the vertex with that view's matrices, squeezes the result into the view's
+ * rectangle of a viewport covering the whole target and clips it to the rectangle with {@code gl_ClipDistance}. This
+ * routes primitives to their view like {@code gl_ViewportIndex} would, but without needing a geometry shader or a
+ * vertex shader extension. Each view's light clusters are concatenated into one set of storage buffers, so the
+ * fragment shader picks its view's clusters by the view index passed down from the vertex shader.
+ * <p>
+ * The per-view CPU work (culling and light binning) is unchanged; what is saved is one set of state changes and draw
+ * calls per view.
+ */
+public class MultiViewPass
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final int MAX_VIEWS = 4;
+	public static final int LIGHT_BUFFER_BINDING = 0;
+	public static final int CLUSTER_BUFFER_BINDING = 1;
+	public static final int INDEX_BUFFER_BINDING = 2;
+	private static final int CLIP_PLANES = 4;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final int[] m_buffers;
+	private final float[] m_viewMatrices, m_projectionMatrices;
+	private final float[] m_viewRects, m_clusterOrigins, m_clusterScreens;
+	private final ClusteredLighting[] m_lighting;
+	private int m_viewCount;
+	private int m_targetWidth, m_targetHeight;
+	private FloatBuffer m_lightData;
+	private IntBuffer m_clusterData, m_indexData;
+	
+	public MultiViewPass()
+	{
+		m_buffers = new int[3];
+		m_viewMatrices = new float[MAX_VIEWS * 16];
+		m_projectionMatrices = new float[MAX_VIEWS * 16];
+		m_viewRects = new float[MAX_VIEWS * 4];
+		m_clusterOrigins = new float[MAX_VIEWS * 2];
+		m_clusterScreens = new float[MAX_VIEWS * 2];
+		m_lighting = new ClusteredLighting[MAX_VIEWS];
+		m_lightData = Buffers.newDirectFloatBuffer(ClusteredLighting.FLOATS_PER_LIGHT);
+		m_clusterData = Buffers.newDirectIntBuffer(ClusteredLighting.CLUSTER_COUNT * 2);
+		m_indexData = Buffers.newDirectIntBuffer(1);
+	}
+	
+	public void init(GL4 gl)
+	{
+		gl.glGenBuffers(m_buffers.length, m_buffers, 0);
+	}
+	
+	/**
+	 * Starts collecting the views of a frame drawn into a target of the given size.
+	 */
+	public void begin(int viewCount, int targetWidth, int targetHeight)
+	{
+		if(viewCount > MAX_VIEWS)
+		{
+			throw new IllegalArgumentException("At most " + MAX_VIEWS + " views can be drawn in one pass, not " + viewCount);
+		}
+		m_viewCount = viewCount;
+		m_targetWidth = targetWidth;
+		m_targetHeight = targetHeight;
+	}
+	
+	/**
+	 * Sets the camera of one view.
+	 *
+	 * @param viewport x, y, width and height in pixels of the view's rectangle of the target
+	 * @param lighting the view's light clusters, already updated for this frame
+	 */
+	public void setView(int index, Matrix3D viewMatrix, Matrix3D projectionMatrix, int[] viewport, ClusteredLighting lighting)
+	{
+		System.arraycopy(viewMatrix.getFloatValues(), 0, m_viewMatrices, index * 16, 16);
+		System.arraycopy(projectionMatrix.getFloatValues(), 0, m_projectionMatrices, index * 16, 16);
+		
+		// Scale and offset that take the view's normalized device coordinates to the whole target's.
+		m_viewRects[index * 4] = (float) viewport[2] / m_targetWidth;
+		m_viewRects[index * 4 + 1] = (float) viewport[3] / m_targetHeight;
+		m_viewRects[index * 4 + 2] = (2.0f * viewport[0] + viewport[2]) / m_targetWidth - 1.0f;
+		m_viewRects[index * 4 + 3] = (2.0f * viewport[1] + viewport[3]) / m_targetHeight - 1.0f;
+		
+		m_clusterOrigins[index * 2] = viewport[0];
+		m_clusterOrigins[index * 2 + 1] = viewport[1];
+		m_clusterScreens[index * 2] = viewport[2];
+		m_clusterScreens[index * 2 + 1] = viewport[3];
+		m_lighting[index] = lighting;
+	}
+	
+	/**
+	 * Uploads the light clusters of every view into the shared storage buffers.
+	 */
+	public void upload(GL4 gl)
+	{
+		int lightCount = 0, indexCount = 0;
+		for(int view = 0; view < m_viewCount; view++)
+		{
+			lightCount += m_lighting[view].getLightCount();
+			indexCount += m_lighting[view].getIndexCount();
+		}
+		if(m_lightData.capacity() < Math.max(lightCount, 1) * ClusteredLighting.FLOATS_PER_LIGHT)
+		{
+			m_lightData = Buffers.newDirectFloatBuffer(lightCount * 2 * ClusteredLighting.FLOATS_PER_LIGHT);
+		}
+		if(m_clusterData.capacity() < Math.max(m_viewCount, 1) * ClusteredLighting.CLUSTER_COUNT * 2)
+		{
+			m_clusterData = Buffers.newDirectIntBuffer(MAX_VIEWS * ClusteredLighting.CLUSTER_COUNT * 2);
+		}
+		if(m_indexData.capacity() < Math.max(indexCount, 1))
+		{
+			m_indexData = Buffers.newDirectIntBuffer(indexCount * 2);
+		}
+		
+		m_lightData.clear();
+		m_clusterData.clear();
+		m_indexData.clear();
+		for(int view = 0; view < m_viewCount; view++)
+		{
+			m_lighting[view].write(m_lightData, m_clusterData, m_indexData);
+		}
+		m_lightData.flip();
+		m_clusterData.flip();
+		m_indexData.flip();
+		
+		// Empty buffers still need some storage to bind.
+		m_lightData.limit(Math.max(m_lightData.limit(), ClusteredLighting.FLOATS_PER_LIGHT));
+		m_clusterData.limit(Math.max(m_clusterData.limit(), 2));
+		m_indexData.limit(Math.max(m_indexData.limit(), 1));
+		
+		// Respecify each buffer every frame so the driver can orphan the storage still in use by the previous frame.
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, m_buffers[0]);
+		gl.glBufferData(GL_SHADER_STORAGE_BUFFER, m_lightData.limit() * 4L, m_lightData, GL_STREAM_DRAW);
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, m_buffers[1]);
+		gl.glBufferData(GL_SHADER_STORAGE_BUFFER, m_clusterData.limit() * 4L, m_clusterData, GL_STREAM_DRAW);
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, m_buffers[2]);
+		gl.glBufferData(GL_SHADER_STORAGE_BUFFER, m_indexData.limit() * 4L, m_indexData, GL_STREAM_DRAW);
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+	}
+	
+	/**
+	 * Passes every view's matrices, rectangle and cluster grid to the given program and binds the light buffers.
+	 */
+	public void loadUniforms(GL4 gl, int program)
+	{
+		gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, LIGHT_BUFFER_BINDING, m_buffers[0]);
+		gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, CLUSTER_BUFFER_BINDING, m_buffers[1]);
+		gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, INDEX_BUFFER_BINDING, m_buffers[2]);
+		gl.glUniformMatrix4fv(gl.glGetUniformLocation(program, "view_matrix"), MAX_VIEWS, false, m_viewMatrices, 0);
+		gl.glUniformMatrix4fv(gl.glGetUniformLocation(program, "proj_matrix"), MAX_VIEWS, false, m_projectionMatrices, 0);
+		gl.glUniform4fv(gl.glGetUniformLocation(program, "view_rect"), MAX_VIEWS, m_viewRects, 0);
+		gl.glUniform2fv(gl.glGetUniformLocation(program, "cluster_origin"), MAX_VIEWS, m_clusterOrigins, 0);
+		gl.glUniform2fv(gl.glGetUniformLocation(program, "cluster_screen"), MAX_VIEWS, m_clusterScreens, 0);
+		gl.glUniform3ui(gl.glGetUniformLocation(program, "cluster_dims"), ClusteredLighting.CLUSTERS_X, ClusteredLighting.CLUSTERS_Y, ClusteredLighting.CLUSTERS_Z);
+		if(m_viewCount > 0)
+		{
+			gl.glUniform1f(gl.glGetUniformLocation(program, "cluster_near"), m_lighting[0].getNear());
+			gl.glUniform1f(gl.glGetUniformLocation(program, "cluster_far"), m_lighting[0].getFar());
+		}
+	}
+	
+	/**
+	 * Sets which views the following draws go to.
+	 *
+	 * @return the number of instances each draw needs, one per view in the mask
+	 */
+	public int setVisibleViews(GL4 gl, int program, int viewMask)
+	{
+		gl.glUniform1ui(gl.glGetUniformLocation(program, "visible_views"), viewMask);
+		return Integer.bitCount(viewMask);
+	}
+	
+	/**
+	 * @return the mask that sends a draw to every view
+	 */
+	public int getAllViews()
+	{
+		return (1 << m_viewCount) - 1;
+	}
+	
+	public int getViewCount()
+	{
+		return m_viewCount;
+	}
+	
+	/**
+	 * Covers the whole target with the viewport and turns on the clip planes that keep each view inside its rectangle.
+	 */
+	public void enableClipping(GL4 gl)
+	{
+		gl.glViewport(0, 0, m_targetWidth, m_targetHeight);
+		for(int plane = 0; plane < CLIP_PLANES; plane++)
+		{
+			gl.glEnable(GL_CLIP_DISTANCE0 + plane);
+		}
+	}
+	
+	public void disableClipping(GL4 gl)
+	{
+		for(int plane = 0; plane < CLIP_PLANES; plane++)
+		{
+			gl.glDisable(GL_CLIP_DISTANCE0 + plane);
+		}
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		gl.glDeleteBuffers(m_buffers.length, m_buffers, 0);
+	}
+}
\ No newline at end of file
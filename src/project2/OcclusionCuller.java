@@ -0,0 +1,345 @@
+package project2;
+
+import graphicslib3D.Matrix3D;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Skips bodies that are outside the view or hidden behind large bodies.
+ * <p>
+ * Each frame the occluders (bodies such as the sun) are rasterized on the CPU into a small buffer of view-space depths,
+ * and the buffer is reduced into a hierarchical-Z pyramid where each texel holds the farthest depth of the four below
+ * it. A body is then tested by projecting its bounding sphere to a screen rectangle, reading the few pyramid texels
+ * that cover the rectangle at a matching level, and comparing their farthest depth with the nearest point of the
+ * sphere.
+ * <p>
+ * Occluders must never cover more than they really do, so only front faces of triangles entirely in front of the near
+ * plane are rasterized, and the rasterized depths are eroded by a pixel so that only pixels that are covered all the way
+ * across remain.
+ */
+public class OcclusionCuller
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	private static final int DEPTH_WIDTH = 128;
+	private static final float EMPTY_DEPTH = Float.MAX_VALUE;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private boolean m_enabled;
+	private boolean m_active;
+	private int m_width, m_height;
+	private float[] m_depths;
+	private float[][] m_pyramid;
+	private int[] m_levelWidths, m_levelHeights;
+	private final double[] m_view;
+	private final double[] m_modelView;
+	private double m_scaleX, m_scaleY;
+	private float m_near;
+	private float[] m_screen;
+	private int m_culledCount, m_visibleCount;
+	
+	public OcclusionCuller()
+	{
+		m_enabled = true;
+		m_view = new double[16];
+		m_modelView = new double[16];
+		m_screen = new float[0];
+	}
+	
+	public boolean isEnabled()
+	{
+		return m_enabled;
+	}
+	
+	public void setEnabled(boolean enabled)
+	{
+		m_enabled = enabled;
+	}
+	
+	/**
+	 * Rasterizes the occluders among the bodies for the given camera, builds the depth pyramid and resets the counts.
+	 */
+	public void begin(Matrix3D view, float fovy, float aspect, float near, List<Body> bodies)
+	{
+		m_culledCount = 0;
+		m_visibleCount = 0;
+		m_active = m_enabled;
+		if(!m_active)
+		{
+			return;
+		}
+		
+		resize(Math.max(1, Math.round(DEPTH_WIDTH / aspect)));
+		copy(view, m_view);
+		m_scaleY = 1.0 / Math.tan(Math.toRadians(0.5 * fovy));
+		m_scaleX = m_scaleY / aspect;
+		m_near = near;
+		
+		Arrays.fill(m_depths, EMPTY_DEPTH);
+		for(Body body : bodies)
+		{
+			if(body.isOccluder())
+			{
+				rasterize(body);
+			}
+		}
+		erode();
+		buildPyramid();
+	}
+	
+	/**
+	 * Tests a body against the view and the depth pyramid built by {@link #begin}, and counts the result.
+	 */
+	public boolean isVisible(Body body)
+	{
+		boolean visible = !m_active || test(body);
+		if(visible)
+		{
+			m_visibleCount++;
+		}
+		else
+		{
+			m_culledCount++;
+		}
+		return visible;
+	}
+	
+	/**
+	 * @return the number of bodies culled since the last {@link #begin}
+	 */
+	public int getCulledCount()
+	{
+		return m_culledCount;
+	}
+	
+	/**
+	 * @return the number of bodies found visible since the last {@link #begin}
+	 */
+	public int getVisibleCount()
+	{
+		return m_visibleCount;
+	}
+	
+	private boolean test(Body body)
+	{
+		double[] v = m_view;
+		double cx = body.getCenterX(), cy = body.getCenterY(), cz = body.getCenterZ();
+		double x = v[0] * cx + v[4] * cy + v[8] * cz + v[12];
+		double y = v[1] * cx + v[5] * cy + v[9] * cz + v[13];
+		double depth = -(v[2] * cx + v[6] * cy + v[10] * cz + v[14]);
+		double radius = body.getBoundingRadius();
+		if(depth + radius < m_near)
+		{
+			return false;
+		}
+		if(depth - radius < m_near)
+		{
+			// The sphere reaches the near plane, where its projection is unbounded.
+			return true;
+		}
+		
+		// Bound the projection of the sphere with the projections of its bounding box's corners.
+		double nearDepth = depth - radius, farDepth = depth + radius;
+		double minX = Math.min((x - radius) / nearDepth, (x - radius) / farDepth) * m_scaleX;
+		double maxX = Math.max((x + radius) / nearDepth, (x + radius) / farDepth) * m_scaleX;
+		double minY = Math.min((y - radius) / nearDepth, (y - radius) / farDepth) * m_scaleY;
+		double maxY = Math.max((y + radius) / nearDepth, (y + radius) / farDepth) * m_scaleY;
+		if(maxX < -1.0 || minX > 1.0 || maxY < -1.0 || minY > 1.0)
+		{
+			return false;
+		}
+		
+		int x0 = Math.max((int) Math.floor((minX * 0.5 + 0.5) * m_width), 0);
+		int x1 = Math.min((int) Math.floor((maxX * 0.5 + 0.5) * m_width), m_width - 1);
+		int y0 = Math.max((int) Math.floor((minY * 0.5 + 0.5) * m_height), 0);
+		int y1 = Math.min((int) Math.floor((maxY * 0.5 + 0.5) * m_height), m_height - 1);
+		
+		// Pick the level where the rectangle spans about two texels each way.
+		int size = Math.max(x1 - x0, y1 - y0) + 1;
+		int level = Math.min(Math.max(32 - Integer.numberOfLeadingZeros(size - 1) - 1, 0), m_pyramid.length - 1);
+		float[] texels = m_pyramid[level];
+		int levelWidth = m_levelWidths[level];
+		float farthest = 0.0f;
+		for(int ty = y0 >> level; ty <= y1 >> level; ty++)
+		{
+			for(int tx = x0 >> level; tx <= x1 >> level; tx++)
+			{
+				farthest = Math.max(farthest, texels[ty * levelWidth + tx]);
+			}
+		}
+		return nearDepth <= farthest;
+	}
+	
+	private void rasterize(Body body)
+	{
+		multiply(m_view, body.getModelMatrix(), m_modelView);
+		double[] m = m_modelView;
+		float[] positions = body.getMesh().getPositions();
+		int vertexCount = positions.length / 3;
+		if(m_screen.length < vertexCount * 3)
+		{
+			m_screen = new float[vertexCount * 3];
+		}
+		
+		// Project every vertex once to screen x, screen y and view depth.
+		for(int i = 0; i < vertexCount; i++)
+		{
+			double px = positions[3 * i], py = positions[3 * i + 1], pz = positions[3 * i + 2];
+			double x = m[0] * px + m[4] * py + m[8] * pz + m[12];
+			double y = m[1] * px + m[5] * py + m[9] * pz + m[13];
+			double depth = -(m[2] * px + m[6] * py + m[10] * pz + m[14]);
+			m_screen[3 * i] = (float) ((x * m_scaleX / depth * 0.5 + 0.5) * m_width);
+			m_screen[3 * i + 1] = (float) ((y * m_scaleY / depth * 0.5 + 0.5) * m_height);
+			m_screen[3 * i + 2] = (float) depth;
+		}
+		
+		int[] indices = body.getMesh().getIndices();
+		for(int t = 0; t < indices.length; t += 3)
+		{
+			rasterizeTriangle(3 * indices[t], 3 * indices[t + 1], 3 * indices[t + 2]);
+		}
+	}
+	
+	private void rasterizeTriangle(int a, int b, int c)
+	{
+		float[] s = m_screen;
+		if(s[a + 2] < m_near || s[b + 2] < m_near || s[c + 2] < m_near)
+		{
+			return;
+		}
+		float ax = s[a], ay = s[a + 1], bx = s[b], by = s[b + 1], cx = s[c], cy = s[c + 1];
+		float area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+		if(area <= 0.0f)
+		{
+			// Back-facing or degenerate.
+			return;
+		}
+		
+		int minX = Math.max((int) Math.floor(Math.min(ax, Math.min(bx, cx))), 0);
+		int maxX = Math.min((int) Math.ceil(Math.max(ax, Math.max(bx, cx))), m_width - 1);
+		int minY = Math.max((int) Math.floor(Math.min(ay, Math.min(by, cy))), 0);
+		int maxY = Math.min((int) Math.ceil(Math.max(ay, Math.max(by, cy))), m_height - 1);
+		
+		// Reciprocal depth is linear in screen space, so interpolate that.
+		float inverseA = 1.0f / s[a + 2], inverseB = 1.0f / s[b + 2], inverseC = 1.0f / s[c + 2];
+		float[] depths = m_depths;
+		for(int y = minY; y <= maxY; y++)
+		{
+			float py = y + 0.5f;
+			for(int x = minX; x <= maxX; x++)
+			{
+				float px = x + 0.5f;
+				float wa = (bx - px) * (cy - py) - (by - py) * (cx - px);
+				float wb = (cx - px) * (ay - py) - (cy - py) * (ax - px);
+				float wc = area - wa - wb;
+				if(wa < 0.0f || wb < 0.0f || wc < 0.0f)
+				{
+					continue;
+				}
+				float depth = area / (wa * inverseA + wb * inverseB + wc * inverseC);
+				int pixel = y * m_width + x;
+				depths[pixel] = Math.min(depths[pixel], depth);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the base of the pyramid, giving each pixel the farthest depth among itself and its four neighbours.
+	 */
+	private void erode()
+	{
+		float[] base = m_pyramid[0];
+		for(int y = 0; y < m_height; y++)
+		{
+			for(int x = 0; x < m_width; x++)
+			{
+				int pixel = y * m_width + x;
+				float depth = m_depths[pixel];
+				depth = Math.max(depth, x > 0 ? m_depths[pixel - 1] : EMPTY_DEPTH);
+				depth = Math.max(depth, x < m_width - 1 ? m_depths[pixel + 1] : EMPTY_DEPTH);
+				depth = Math.max(depth, y > 0 ? m_depths[pixel - m_width] : EMPTY_DEPTH);
+				depth = Math.max(depth, y < m_height - 1 ? m_depths[pixel + m_width] : EMPTY_DEPTH);
+				base[pixel] = depth;
+			}
+		}
+	}
+	
+	private void buildPyramid()
+	{
+		for(int level = 1; level < m_pyramid.length; level++)
+		{
+			float[] fine = m_pyramid[level - 1], coarse = m_pyramid[level];
+			int fineWidth = m_levelWidths[level - 1], fineHeight = m_levelHeights[level - 1];
+			int width = m_levelWidths[level], height = m_levelHeights[level];
+			for(int y = 0; y < height; y++)
+			{
+				int y0 = 2 * y * fineWidth, y1 = Math.min(2 * y + 1, fineHeight - 1) * fineWidth;
+				for(int x = 0; x < width; x++)
+				{
+					int x0 = 2 * x, x1 = Math.min(2 * x + 1, fineWidth - 1);
+					coarse[y * width + x] = Math.max(Math.max(fine[y0 + x0], fine[y0 + x1]), Math.max(fine[y1 + x0], fine[y1 + x1]));
+				}
+			}
+		}
+	}
+	
+	private void resize(int height)
+	{
+		if(m_pyramid != null && m_height == height)
+		{
+			return;
+		}
+		m_width = DEPTH_WIDTH;
+		m_height = height;
+		m_depths = new float[m_width * m_height];
+		
+		int levels = 1;
+		while((Math.max(m_width, m_height) - 1) >> levels > 0)
+		{
+			levels++;
+		}
+		m_pyramid = new float[levels][];
+		m_levelWidths = new int[levels];
+		m_levelHeights = new int[levels];
+		for(int level = 0; level < levels; level++)
+		{
+			m_levelWidths[level] = ((m_width - 1) >> level) + 1;
+			m_levelHeights[level] = ((m_height - 1) >> level) + 1;
+			m_pyramid[level] = new float[m_levelWidths[level] * m_levelHeights[level]];
+		}
+	}
+	
+	/**
+	 * Copies a matrix into a column-major array.
+	 */
+	private static void copy(Matrix3D matrix, double[] out)
+	{
+		for(int column = 0; column < 4; column++)
+		{
+			for(int row = 0; row < 4; row++)
+			{
+				out[column * 4 + row] = matrix.getElement(row, column);
+			}
+		}
+	}
+	
+	private static void multiply(double[] left, Matrix3D right, double[] out)
+	{
+		for(int column = 0; column < 4; column++)
+		{
+			for(int row = 0; row < 4; row++)
+			{
+				double sum = 0.0;
+				for(int k = 0; k < 4; k++)
+				{
+					sum += left[k * 4 + row] * right.getElement(k, column);
+				}
+				out[column * 4 + row] = sum;
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package project2;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL4;
+
+import java.awt.Color;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * The recent paths of a set of bodies, kept in a ring buffer on the GPU and drawn as lines that fade with age.
+ * <p>
+ * All bodies are sampled together, and the ring is laid out sample-major (every body's position for one sample, then
+ * the next sample), so recording a sample is a single {@code glBufferSubData} of one slot no matter how long the trails
+ * are. Drawing is a single instanced draw of line strips, one instance per body and view, whose vertex shader reads the
+ * samples from the buffer oldest first.
+ */
+public class OrbitTrails
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final int TRAIL_LENGTH = 512;
+	public static final int POSITION_BUFFER_BINDING = 3;
+	public static final int COLOR_BUFFER_BINDING = 4;
+	private static final long SAMPLE_INTERVAL_NANOS = 20000000L;
+	private static final int FLOATS_PER_SAMPLE = 3;
+	private static final float TRAIL_OPACITY = 0.8f;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final List<Body> m_bodies;
+	private final int[] m_buffers;
+	private final FloatBuffer m_slot;
+	private int m_head;
+	private int m_sampleCount;
+	private long m_lastSample;
+	
+	/**
+	 * @param bodies the bodies to trail; each gets its own color
+	 */
+	public OrbitTrails(List<Body> bodies)
+	{
+		m_bodies = bodies;
+		m_buffers = new int[2];
+		m_slot = Buffers.newDirectFloatBuffer(bodies.size() * FLOATS_PER_SAMPLE);
+	}
+	
+	public void init(GL4 gl)
+	{
+		gl.glGenBuffers(m_buffers.length, m_buffers, 0);
+		
+		// Allocate the whole ring once; samples are only ever written into it.
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, m_buffers[0]);
+		gl.glBufferData(GL_SHADER_STORAGE_BUFFER, (long) TRAIL_LENGTH * getSlotSize(), null, GL_DYNAMIC_DRAW);
+		
+		// Spread the bodies' colors around the hue circle.
+		FloatBuffer colors = Buffers.newDirectFloatBuffer(m_bodies.size() * 4);
+		for(int i = 0; i < m_bodies.size(); i++)
+		{
+			Color color = Color.getHSBColor(i * 0.618034f % 1.0f, 0.6f, 1.0f);
+			colors.put(color.getRed() / 255.0f).put(color.getGreen() / 255.0f).put(color.getBlue() / 255.0f).put(TRAIL_OPACITY);
+		}
+		colors.flip();
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, m_buffers[1]);
+		gl.glBufferData(GL_SHADER_STORAGE_BUFFER, colors.limit() * 4L, colors, GL_STATIC_DRAW);
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+	}
+	
+	/**
+	 * Records the bodies' current positions if a sample is due. Sampling at a fixed interval keeps the trails the same
+	 * length in time whatever the frame rate.
+	 */
+	public void append(GL4 gl)
+	{
+		long now = System.nanoTime();
+		if(m_sampleCount > 0 && now - m_lastSample < SAMPLE_INTERVAL_NANOS)
+		{
+			return;
+		}
+		m_lastSample = now;
+		
+		m_slot.clear();
+		for(Body body : m_bodies)
+		{
+			m_slot.put(body.getCenterX()).put(body.getCenterY()).put(body.getCenterZ());
+		}
+		m_slot.flip();
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, m_buffers[0]);
+		gl.glBufferSubData(GL_SHADER_STORAGE_BUFFER, (long) m_head * getSlotSize(), getSlotSize(), m_slot);
+		gl.glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+		
+		m_head = (m_head + 1) % TRAIL_LENGTH;
+		m_sampleCount = Math.min(m_sampleCount + 1, TRAIL_LENGTH);
+	}
+	
+	/**
+	 * Draws every trail into every view of the pass with the given program, which is left in use.
+	 */
+	public void draw(GL4 gl, int program, MultiViewPass views)
+	{
+		if(m_sampleCount < 2)
+		{
+			return;
+		}
+		
+		gl.glUseProgram(program);
+		views.loadUniforms(gl, program);
+		int viewCount = views.setVisibleViews(gl, program, views.getAllViews());
+		gl.glUniform1i(gl.glGetUniformLocation(program, "trail_length"), TRAIL_LENGTH);
+		gl.glUniform1i(gl.glGetUniformLocation(program, "trail_oldest"), (m_head - m_sampleCount + TRAIL_LENGTH) % TRAIL_LENGTH);
+		gl.glUniform1i(gl.glGetUniformLocation(program, "trail_count"), m_sampleCount);
+		gl.glUniform1i(gl.glGetUniformLocation(program, "trail_bodies"), m_bodies.size());
+		gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, POSITION_BUFFER_BINDING, m_buffers[0]);
+		gl.glBindBufferBase(GL_SHADER_STORAGE_BUFFER, COLOR_BUFFER_BINDING, m_buffers[1]);
+		
+		// Trails are translucent: blend them over the scene without hiding each other.
+		gl.glEnable(GL_BLEND);
+		gl.glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+		gl.glDepthMask(false);
+		
+		// Positions come from the storage buffer, not from vertex attributes.
+		gl.glDisableVertexAttribArray(0);
+		gl.glDrawArraysInstanced(GL_LINE_STRIP, 0, m_sampleCount, m_bodies.size() * viewCount);
+		
+		gl.glDepthMask(true);
+		gl.glDisable(GL_BLEND);
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		gl.glDeleteBuffers(m_buffers.length, m_buffers, 0);
+	}
+	
+	private int getSlotSize()
+	{
+		return m_bodies.size() * FLOATS_PER_SAMPLE * 4;
+	}
+}
\ No newline at end of file
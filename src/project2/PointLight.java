@@ -0,0 +1,82 @@
+package project2;
+
+/**
+ * An omnidirectional light in world space whose influence fades smoothly to zero at its radius.
+ */
+public class PointLight
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private float m_x, m_y, m_z;
+	private float m_radius;
+	private float m_red, m_green, m_blue;
+	private float m_intensity;
+	
+	public PointLight(float x, float y, float z, float radius, float red, float green, float blue, float intensity)
+	{
+		setPosition(x, y, z);
+		m_radius = radius;
+		m_red = red;
+		m_green = green;
+		m_blue = blue;
+		m_intensity = intensity;
+	}
+	
+	public void setPosition(float x, float y, float z)
+	{
+		m_x = x;
+		m_y = y;
+		m_z = z;
+	}
+	
+	public float getX()
+	{
+		return m_x;
+	}
+	
+	public float getY()
+	{
+		return m_y;
+	}
+	
+	public float getZ()
+	{
+		return m_z;
+	}
+	
+	public float getRadius()
+	{
+		return m_radius;
+	}
+	
+	public void setRadius(float radius)
+	{
+		m_radius = radius;
+	}
+	
+	public float getRed()
+	{
+		return m_red;
+	}
+	
+	public float getGreen()
+	{
+		return m_green;
+	}
+	
+	public float getBlue()
+	{
+		return m_blue;
+	}
+	
+	public float getIntensity()
+	{
+		return m_intensity;
+	}
+	
+	public void setIntensity(float intensity)
+	{
+		m_intensity = intensity;
+	}
+}
\ No newline at end of file
@@ -6,17 +6,19 @@ import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLContext;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.awt.GLCanvas;
-import com.jogamp.opengl.util.FPSAnimator;
-import com.jogamp.opengl.util.texture.Texture;
-import com.jogamp.opengl.util.texture.TextureIO;
 import graphicslib3D.*;
-import graphicslib3D.shape.Sphere;
 
 import javax.swing.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.io.File;
+import java.io.IOException;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import static com.jogamp.opengl.GL4.*;
 
@@ -32,10 +34,36 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 	/* ********* *
 	 * Constants *
 	 * ********* */
-	private static final int SPHERE_PRECISION = 24;
+	private static final String TITLE = "Project 2 - 3D Modeling and Camera Manipulation";
+	private static final long TITLE_INTERVAL_NANOS = 250000000L;
+	private static final int ICOSPHERE_SUBDIVISIONS = 2;
+	private static final boolean USE_COMPACT_VERTICES = true;
+	private static final float[] UNIT_SCALE = {1.0f, 1.0f, 1.0f};
+	private static final float[] ZERO_BIAS = {0.0f, 0.0f, 0.0f};
 	private static final float TRANSLATE_FACTOR = 0.5f;
 	private static final float YAW_FACTOR = 0.1f;
 	private static final float PITCH_FACTOR = 0.1f;
+	private static final String RENDERING_PROGRAM = "rendering";
+	private static final String VERTEX_SHADER_FILE = "shaders/vert.shader";
+	private static final String FRAGMENT_SHADER_FILE = "shaders/frag.shader";
+	private static final String TRAIL_PROGRAM = "trails";
+	private static final String TRAIL_VERTEX_SHADER_FILE = "shaders/trail_vert.shader";
+	private static final String TRAIL_FRAGMENT_SHADER_FILE = "shaders/trail_frag.shader";
+	private static final String[] WATCHED_DIRECTORIES = {"shaders", "textures"};
+	private static final long RELOAD_BUDGET_NANOS = 2000000L;
+	private static final float FIELD_OF_VIEW = 60.0f;
+	private static final float NEAR_PLANE = 0.1f;
+	private static final float FAR_PLANE = 1000.0f;
+	private static final float SUN_LIGHT_RADIUS = 50.0f;
+	private static final float[] AMBIENT_LIGHT = {0.08f, 0.08f, 0.1f};
+	private static final FrameScheduler.Mode PACING_MODE = FrameScheduler.Mode.FIXED_RATE;
+	private static final int FRAME_RATE = 60;
+	private static final float TARGET_FRAME_MILLIS = 1000.0f / FRAME_RATE;
+	private static final float MIN_RENDER_SCALE = 0.5f;
+	private static final float MAX_RENDER_SCALE = 1.0f;
+	private static final float FOLLOW_DISTANCE = 2.5f;
+	private static final float FOLLOW_HEIGHT = 1.0f;
+	private static final float TOP_DOWN_HEIGHT = 25.0f;
 	private static final String EARTH_TEXTURE_FILE = "textures/earth.jpg";
 	private static final String SUN_TEXTURE_FILE = "textures/sun.jpg";
 	private static final String EARTH_MOON_TEXTURE_FILE = "textures/moon.jpg";
@@ -50,53 +78,107 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 	 * Member Variables *
 	 * **************** */
 	private GLCanvas m_myCanvas;
+	private ShaderProgramRegistry m_programRegistry;
+	private TextureRegistry m_textureRegistry;
+	private ResourceWatcher m_resourceWatcher;
 	private int m_renderingProgram;
 	private int[] m_vao;
 	private int[] m_vbo;
+	private int[] m_ibo;
+	private QuantizedMesh[] m_quantizedMeshes;
 	private MatrixStack m_mvStack;
 	private float m_cameraX, m_cameraY, m_cameraZ, m_cameraPitch, m_cameraYaw;
 	private Vector3D m_forwardVector;
 	private float m_sunLocX, m_sunLocY, m_sunLocZ;
-	private FPSAnimator m_animator;
-	private Sphere m_sun, m_earth, m_earthMoon, m_mars, m_phobos;
-	private PentagonalPrism m_pentagonalPrism;
+	private FrameScheduler m_frameScheduler;
+	private RenderTarget m_renderTarget;
+	private FrameCapture m_frameCapture;
+	private int m_screenWidth, m_screenHeight;
+	private MeshCache m_meshCache;
+	private Mesh m_sun, m_earth, m_earthMoon, m_mars, m_phobos, m_pentagonalPrism;
+	private Body m_sunBody, m_earthBody, m_earthMoonBody, m_marsBody, m_phobosBody, m_pentagonalPrismBody;
+	private List<Body> m_bodies;
+	private OrbitTrails m_orbitTrails;
+	private boolean m_drawOrbitTrails;
+	private List<View> m_singleView, m_multiViews;
+	private boolean m_multiView;
+	private MultiViewPass m_multiViewPass;
+	private boolean m_occlusionCulling;
 	private int m_sunTexture, m_earthTexture, m_earthMoonTexture, m_marsTexture, m_phobosTexture, m_meTexture, m_redTexture, m_greenTexture, m_blueTexture;
 	private boolean m_drawWorldAxes;
+	private List<PointLight> m_lights;
+	private PointLight m_sunLight;
+	private String m_title;
+	private long m_lastTitleUpdate;
 	
 	public Project2()
 	{
 		// Initialize default member variable values.
 		m_vao = new int[1];
-		m_vbo = new int[21];
+		m_vbo = new int[9];
+		m_ibo = new int[2];
+		m_quantizedMeshes = new QuantizedMesh[2];
 		m_mvStack = new MatrixStack(20);
-		m_sun = new Sphere(SPHERE_PRECISION);
-		m_earth = new Sphere(SPHERE_PRECISION);
-		m_earthMoon = new Sphere(SPHERE_PRECISION);
-		m_mars = new Sphere(SPHERE_PRECISION);
-		m_phobos = new Sphere(SPHERE_PRECISION);
-		m_pentagonalPrism = new PentagonalPrism(1);
+		m_programRegistry = new ShaderProgramRegistry();
+		m_textureRegistry = new TextureRegistry();
+		m_meshCache = new MeshCache();
+		m_sun = m_meshCache.getIcosphere(ICOSPHERE_SUBDIVISIONS);
+		m_earth = m_meshCache.getIcosphere(ICOSPHERE_SUBDIVISIONS);
+		m_earthMoon = m_meshCache.getIcosphere(ICOSPHERE_SUBDIVISIONS);
+		m_mars = m_meshCache.getIcosphere(ICOSPHERE_SUBDIVISIONS);
+		m_phobos = m_meshCache.getIcosphere(ICOSPHERE_SUBDIVISIONS);
+		m_pentagonalPrism = m_meshCache.getPrism(5, 1);
 		m_drawWorldAxes = true;
+		m_occlusionCulling = true;
+		m_drawOrbitTrails = true;
+		m_multiView = true;
+		m_singleView = Arrays.asList(new View("Free Camera", 0.0f, 0.0f, 1.0f, 1.0f, this::freeCamera));
+		m_multiViews = Arrays.asList(new View("Free Camera", 0.0f, 0.0f, 2.0f / 3.0f, 1.0f, this::freeCamera),
+				new View("Earth Follow", 2.0f / 3.0f, 0.5f, 1.0f / 3.0f, 0.5f, this::followCamera),
+				new View("Top Down", 2.0f / 3.0f, 0.0f, 1.0f / 3.0f, 0.5f, this::topDownCamera));
+		m_multiViewPass = new MultiViewPass();
+		m_renderTarget = new RenderTarget();
+		m_frameCapture = new FrameCapture();
+		m_lights = new CopyOnWriteArrayList<>();
+		m_sunLight = new PointLight(0.0f, 0.0f, 0.0f, SUN_LIGHT_RADIUS, 1.0f, 0.95f, 0.85f, 1.2f);
+		m_lights.add(m_sunLight);
 		
 		// Set up JFrame properties.
-		setTitle("Project 2 - 3D Modeling and Camera Manipulation");
+		m_title = TITLE;
+		setTitle(m_title);
 		setSize(800, 800);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 		m_myCanvas = new GLCanvas();
 		m_myCanvas.addGLEventListener(this);
 		m_myCanvas.addKeyListener(this);
 		getContentPane().add(m_myCanvas);
+		m_frameScheduler = new FrameScheduler(m_myCanvas, PACING_MODE, FRAME_RATE, TARGET_FRAME_MILLIS, MIN_RENDER_SCALE, MAX_RENDER_SCALE);
 		this.setVisible(true);
-		m_animator = new FPSAnimator(m_myCanvas, 60);
-		m_animator.start();
+		m_frameScheduler.start();
 	}
 	
 	public void display(GLAutoDrawable drawable)
 	{
 		GL4 gl = (GL4) GLContext.getCurrentGL();
+		m_frameScheduler.beginFrame(gl);
 		
 		updateForward();
 		
-		m_mvStack = new MatrixStack(20);
+		// Apply shader and texture changes picked up by the resource watcher.
+		if(m_resourceWatcher != null)
+		{
+			m_resourceWatcher.processPending(gl, RELOAD_BUDGET_NANOS);
+		}
+		m_renderingProgram = m_programRegistry.getProgram(RENDERING_PROGRAM);
+		
+		// Place the bodies for this frame and record where they are.
+		updateBodies();
+		m_orbitTrails.append(gl);
+		
+		// Draw into the offscreen target at the resolution the frame scheduler can currently afford.
+		float renderScale = m_frameScheduler.getRenderScale();
+		m_renderTarget.resize(gl, Math.round(m_screenWidth * renderScale), Math.round(m_screenHeight * renderScale));
+		m_renderTarget.bind(gl);
 		
 		// Clear the depth buffer so no trails are left behind.
 		gl.glClear(GL_DEPTH_BUFFER_BIT);
@@ -108,161 +190,259 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 		
 		gl.glUseProgram(m_renderingProgram);
 		
-		// Get the memory locations of the uniforms in the shaders.
-		int mvLoc = gl.glGetUniformLocation(m_renderingProgram, "mv_matrix");
-		int projLoc = gl.glGetUniformLocation(m_renderingProgram, "proj_matrix");
+		// Lights move with the simulation, so they are placed once and shared by every view.
+		m_sunLight.setPosition(m_sunLocX, m_sunLocY, m_sunLocZ);
+		gl.glUniform3fv(gl.glGetUniformLocation(m_renderingProgram, "ambient"), 1, AMBIENT_LIGHT, 0);
+		
+		// Enable depth test and face-culling.
+		gl.glEnable(GL_DEPTH_TEST);
+		gl.glEnable(GL_CULL_FACE);
+		gl.glFrontFace(GL_CCW);
+		
+		// Everything so far is shared; each view only culls and bins lights for its own camera.
+		List<View> views = getActiveViews();
+		m_multiViewPass.begin(views.size(), m_renderTarget.getWidth(), m_renderTarget.getHeight());
+		for(int i = 0; i < views.size(); i++)
+		{
+			prepareView(i, views.get(i));
+		}
+		m_multiViewPass.upload(gl);
+		
+		// Then all views are drawn in one pass, each body going only to the views that can see it.
+		drawViews(gl, views);
+		
+		// Scale the frame up onto the window.
+		m_renderTarget.blitToScreen(gl, m_screenWidth, m_screenHeight);
 		
-		// Construct perspective projection matrix.
-		float aspect = (float) m_myCanvas.getWidth() / (float) m_myCanvas.getHeight();
-		Matrix3D pMat = perspective(60.0f, aspect, 0.1f, 1000.0f);
+		// Queue the finished frame for recording.
+		m_frameCapture.capture(gl, m_screenWidth, m_screenHeight);
+		m_frameScheduler.endFrame(gl);
+		
+		// Show the current settings in the title bar.
+		updateTitle();
+	}
+	
+	/**
+	 * Rebuilds the window title from the current settings a few times a second, handing it to the event dispatch thread
+	 * only when it has changed.
+	 */
+	private void updateTitle()
+	{
+		long now = System.nanoTime();
+		if(now - m_lastTitleUpdate < TITLE_INTERVAL_NANOS)
+		{
+			return;
+		}
+		m_lastTitleUpdate = now;
+		
+		String title = TITLE + " - " + m_frameScheduler.getMode() + " pacing, occlusion culling " + (m_occlusionCulling ? "on" : "off")
+				+ " (" + getVisibleBodyCount() + " drawn, " + getCulledBodyCount() + " culled)";
+		if(!title.equals(m_title))
+		{
+			m_title = title;
+			SwingUtilities.invokeLater(() -> setTitle(title));
+		}
+	}
+	
+	/**
+	 * Culls the bodies and bins the lights for one view, and hands its camera to the multi-view pass.
+	 */
+	private void prepareView(int index, View view)
+	{
+		// The view's part of the render target.
+		int[] viewport = view.getViewport(m_renderTarget.getWidth(), m_renderTarget.getHeight());
+		
+		// Construct perspective projection matrix from the view's shape on screen, which does not change with the render scale.
+		int[] screenViewport = view.getViewport(m_screenWidth, m_screenHeight);
+		float aspect = (float) screenViewport[2] / (float) screenViewport[3];
+		Matrix3D pMat = perspective(FIELD_OF_VIEW, aspect, NEAR_PLANE, FAR_PLANE);
 		
 		// Set up view matrix.
-		m_mvStack.pushMatrix();
-		m_mvStack.multMatrix(
-				lookAt(new Point3D(m_cameraX, m_cameraY, m_cameraZ), new Point3D(m_cameraX + m_forwardVector.getX(), m_cameraY + m_forwardVector.getY(), m_cameraZ + m_forwardVector.getZ()),
-						new Vector3D(0.0f, 1.0f, 0.0f)));
-		//m_mvStack.loadMatrix(m_viewMatrix);
-		//m_mvStack.translate(-m_cameraX, -m_cameraY, -m_cameraZ);
+		Matrix3D vMat = view.getViewMatrix();
 		
-		double amt = (System.currentTimeMillis()) / 1000.0;
+		// Bin the point lights into the view's clusters.
+		ClusteredLighting lighting = view.getLighting();
+		lighting.setProjection(FIELD_OF_VIEW, aspect, NEAR_PLANE, FAR_PLANE);
+		lighting.update(vMat, m_lights);
 		
-		// Pass the projection matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(projLoc, 1, false, pMat.getFloatValues(), 0);
+		// Rasterize the large bodies on the CPU so that whatever they hide is never submitted.
+		OcclusionCuller occlusionCuller = view.getOcclusionCuller();
+		occlusionCuller.setEnabled(m_occlusionCulling);
+		occlusionCuller.begin(vMat, FIELD_OF_VIEW, aspect, NEAR_PLANE, m_bodies);
 		
-		/* *** *
-		 * Sun *
-		 * *** */
+		m_multiViewPass.setView(index, vMat, pMat, viewport, lighting);
+	}
+	
+	private void drawViews(GL4 gl, List<View> views)
+	{
+		// Get the memory location of the model matrix uniform in the shader.
+		int mLoc = gl.glGetUniformLocation(m_renderingProgram, "m_matrix");
 		
-		// Apply transformations to the model-view matrix.
-		m_mvStack.pushMatrix();
-		m_mvStack.translate(m_sunLocX, m_sunLocY, m_sunLocZ);
-		m_mvStack.pushMatrix();
-		m_mvStack.rotate(((System.currentTimeMillis()) / 100.0) % 360, 0.0, 1.0, 0.0);
+		// Pass every view's matrices and light clusters to the shader.
+		m_multiViewPass.enableClipping(gl);
+		m_multiViewPass.loadUniforms(gl, m_renderingProgram);
 		
-		// Pass the model-view matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
+		for(Body body : m_bodies)
+		{
+			int viewMask = 0;
+			for(int i = 0; i < views.size(); i++)
+			{
+				if(views.get(i).getOcclusionCuller().isVisible(body))
+				{
+					viewMask |= 1 << i;
+				}
+			}
+			if(viewMask != 0)
+			{
+				drawBody(gl, mLoc, body, viewMask);
+			}
+		}
 		
-		// Bind the vertex buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[0]);
-		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(0);
+		/* ********** *
+		 * World Axes *
+		 * ********** */
 		
-		// Bind the texture buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[1]);
-		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(1);
+		if(m_drawWorldAxes)
+		{
+			// Axis vertices are plain floats and the axes have no normals to light.
+			loadVertexDecodeUniforms(gl, UNIT_SCALE, ZERO_BIAS, UNIT_SCALE, ZERO_BIAS, false);
+			gl.glUniform1i(gl.glGetUniformLocation(m_renderingProgram, "emissive"), 1);
+			gl.glDisableVertexAttribArray(1);
+			gl.glDisableVertexAttribArray(2);
+			
+			// The axes are drawn in world space into every view.
+			gl.glUniformMatrix4fv(mLoc, 1, false, new Matrix3D().getFloatValues(), 0);
+			int instances = m_multiViewPass.setVisibleViews(gl, m_renderingProgram, m_multiViewPass.getAllViews());
+			
+			/* ****** *
+			 * X Axis *
+			 * ****** */
+			
+			// Bind the vertex buffer to a vertex attribute.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[3]);
+			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+			gl.glEnableVertexAttribArray(0);
+			
+			// Texture
+			gl.glActiveTexture(GL_TEXTURE0);
+			gl.glBindTexture(GL_TEXTURE_2D, m_redTexture);
+			
+			gl.glDrawArraysInstanced(GL_LINES, 0, 2, instances);
+			
+			/* ****** *
+			 * Y Axis *
+			 * ****** */
+			
+			// Bind the vertex buffer to a vertex attribute.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[4]);
+			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+			gl.glEnableVertexAttribArray(0);
+			
+			// Texture
+			gl.glActiveTexture(GL_TEXTURE0);
+			gl.glBindTexture(GL_TEXTURE_2D, m_greenTexture);
+			
+			gl.glDrawArraysInstanced(GL_LINES, 0, 2, instances);
+			
+			/* ****** *
+			 * Z Axis *
+			 * ****** */
+			
+			// Bind the vertex buffer to a vertex attribute.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[5]);
+			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+			gl.glEnableVertexAttribArray(0);
+			
+			// Texture
+			gl.glActiveTexture(GL_TEXTURE0);
+			gl.glBindTexture(GL_TEXTURE_2D, m_blueTexture);
+			
+			gl.glDrawArraysInstanced(GL_LINES, 0, 2, instances);
+		}
 		
-		// Set up texture.
-		gl.glActiveTexture(GL_TEXTURE0);
-		gl.glBindTexture(GL_TEXTURE_2D, m_sunTexture);
-		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-		gl.glGenerateMipmap(GL_TEXTURE_2D);
-		if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
+		/* ************ *
+		 * Orbit Trails *
+		 * ************ */
+		
+		if(m_drawOrbitTrails)
 		{
-			float max[] = new float[1];
-			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
+			m_orbitTrails.draw(gl, m_programRegistry.getProgram(TRAIL_PROGRAM), m_multiViewPass);
+			gl.glUseProgram(m_renderingProgram);
 		}
 		
-		// Enable depth test and face-culling.
-		gl.glEnable(GL_DEPTH_TEST);
-		gl.glEnable(GL_CULL_FACE);
-		gl.glFrontFace(GL_CCW);
+		m_multiViewPass.disableClipping(gl);
+	}
+	
+	private List<View> getActiveViews()
+	{
+		return m_multiView ? m_multiViews : m_singleView;
+	}
+	
+	private Matrix3D freeCamera()
+	{
+		return lookAt(new Point3D(m_cameraX, m_cameraY, m_cameraZ), new Point3D(m_cameraX + m_forwardVector.getX(), m_cameraY + m_forwardVector.getY(), m_cameraZ + m_forwardVector.getZ()),
+				new Vector3D(0.0f, 1.0f, 0.0f));
+	}
+	
+	/**
+	 * Looks at the Earth from just outside its orbit, so the sun stays behind it.
+	 */
+	private Matrix3D followCamera()
+	{
+		float earthX = m_earthBody.getCenterX(), earthY = m_earthBody.getCenterY(), earthZ = m_earthBody.getCenterZ();
+		Vector3D outward = new Vector3D(earthX - m_sunLocX, earthY - m_sunLocY, earthZ - m_sunLocZ).normalize();
+		Point3D eye = new Point3D(earthX + outward.getX() * FOLLOW_DISTANCE, earthY + outward.getY() * FOLLOW_DISTANCE + FOLLOW_HEIGHT, earthZ + outward.getZ() * FOLLOW_DISTANCE);
+		return lookAt(eye, new Point3D(earthX, earthY, earthZ), new Vector3D(0.0f, 1.0f, 0.0f));
+	}
+	
+	/**
+	 * Looks straight down on the sun from above, with negative z up the screen.
+	 */
+	private Matrix3D topDownCamera()
+	{
+		return lookAt(new Point3D(m_sunLocX, m_sunLocY + TOP_DOWN_HEIGHT, m_sunLocZ), new Point3D(m_sunLocX, m_sunLocY, m_sunLocZ), new Vector3D(0.0f, 0.0f, -1.0f));
+	}
+	
+	/**
+	 * Advances the simulation by placing every body in the world for the current time.
+	 */
+	private void updateBodies()
+	{
+		m_mvStack = new MatrixStack(20);
+		double amt = (System.currentTimeMillis()) / 1000.0;
 		
-		// Draw the object.
-		int numVerts = m_sun.getIndices().length;
-		gl.glDrawArrays(GL_TRIANGLES, 0, numVerts);
+		/* *** *
+		 * Sun *
+		 * *** */
+		
+		m_mvStack.pushMatrix();
+		m_mvStack.translate(m_sunLocX, m_sunLocY, m_sunLocZ);
+		m_mvStack.pushMatrix();
+		m_mvStack.rotate(((System.currentTimeMillis()) / 100.0) % 360, 0.0, 1.0, 0.0);
+		m_sunBody.setModelMatrix(m_mvStack.peek());
 		m_mvStack.popMatrix();
 		
 		/* ***** *
 		 * Earth *
 		 * ***** */
 		
-		// Apply transformations to the model-view matrix.
 		m_mvStack.pushMatrix();
 		m_mvStack.translate(Math.sin(amt) * 4.0f, 0.0f, Math.cos(amt) * 4.0f);
 		m_mvStack.pushMatrix();
 		m_mvStack.rotate(((System.currentTimeMillis()) / 50.0) % 360, 0.0, 1.0, 0.0);
 		m_mvStack.scale(0.75, 0.75, 0.75);
-		
-		// Pass the model-view matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
-		
-		// Bind the vertex buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[3]);
-		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(0);
-		
-		// Bind the texture buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[4]);
-		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(1);
-		
-		// Set up texture.
-		gl.glActiveTexture(GL_TEXTURE0);
-		gl.glBindTexture(GL_TEXTURE_2D, m_earthTexture);
-		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-		gl.glGenerateMipmap(GL_TEXTURE_2D);
-		if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-		{
-			float max[] = new float[1];
-			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-		}
-		
-		// Enable depth test and face-culling.
-		gl.glEnable(GL_DEPTH_TEST);
-		gl.glEnable(GL_CULL_FACE);
-		gl.glFrontFace(GL_CCW);
-		
-		// Draw the object.
-		numVerts = m_earth.getIndices().length;
-		gl.glDrawArrays(GL_TRIANGLES, 0, numVerts);
+		m_earthBody.setModelMatrix(m_mvStack.peek());
 		m_mvStack.popMatrix();
 		
 		/* ************ *
 		 * Earth's Moon *
 		 * ************ */
 		
-		// Apply transformations to the model-view matrix.
 		m_mvStack.pushMatrix();
 		m_mvStack.translate(0.0f, Math.sin(amt) * 2.0f, Math.cos(amt) * 2.0f);
 		m_mvStack.rotate(((System.currentTimeMillis()) / 10.0) % 360, 0.0, 0.0, 1.0);
 		m_mvStack.scale(0.25, 0.25, 0.25);
-		
-		// Pass the model-view matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
-		
-		// Bind the vertex buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[6]);
-		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(0);
-		
-		// Bind the texture buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[7]);
-		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(1);
-		
-		// Set up texture.
-		gl.glActiveTexture(GL_TEXTURE0);
-		gl.glBindTexture(GL_TEXTURE_2D, m_earthMoonTexture);
-		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-		gl.glGenerateMipmap(GL_TEXTURE_2D);
-		if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-		{
-			float max[] = new float[1];
-			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-		}
-		
-		// Enable depth test and face-culling.
-		gl.glEnable(GL_DEPTH_TEST);
-		gl.glEnable(GL_CULL_FACE);
-		gl.glFrontFace(GL_CCW);
-		
-		// Draw the object.
-		numVerts = m_earthMoon.getIndices().length;
-		gl.glDrawArrays(GL_TRIANGLES, 0, numVerts);
+		m_earthMoonBody.setModelMatrix(m_mvStack.peek());
 		m_mvStack.popMatrix();
 		
 		// Go back to sun reference.
@@ -272,238 +452,99 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 		 * Mars *
 		 * **** */
 		
-		// Apply transformations to the model-view matrix.
 		m_mvStack.pushMatrix();
 		m_mvStack.translate(Math.sin(amt * 1.5) * 7.0f, Math.sin(amt * 1.5) * 7.0f, Math.cos(amt * 1.5) * 7.0f);
 		m_mvStack.pushMatrix();
 		m_mvStack.rotate(((System.currentTimeMillis()) / 40.0) % 360, 0.0, 1.0, 0.0);
 		m_mvStack.scale(0.60, 0.60, 0.60);
-		
-		// Pass the model-view matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
-		
-		// Bind the vertex buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[9]);
-		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(0);
-		
-		// Bind the texture buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[10]);
-		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(1);
-		
-		// Set up texture.
-		gl.glActiveTexture(GL_TEXTURE0);
-		gl.glBindTexture(GL_TEXTURE_2D, m_marsTexture);
-		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-		gl.glGenerateMipmap(GL_TEXTURE_2D);
-		if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-		{
-			float max[] = new float[1];
-			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-		}
-		
-		// Enable depth test and face-culling.
-		gl.glEnable(GL_DEPTH_TEST);
-		gl.glEnable(GL_CULL_FACE);
-		gl.glFrontFace(GL_CCW);
-		
-		// Draw the object.
-		numVerts = m_mars.getIndices().length;
-		gl.glDrawArrays(GL_TRIANGLES, 0, numVerts);
+		m_marsBody.setModelMatrix(m_mvStack.peek());
 		m_mvStack.popMatrix();
 		
 		/* ****** *
 		 * Phobos *
 		 * ****** */
 		
-		// Apply transformations to the model-view matrix.
 		m_mvStack.pushMatrix();
 		m_mvStack.translate(Math.cos(amt * 2.0) * 1.5f, Math.sin(amt * 2.0) * 1.5f, Math.cos(amt * 2.0) * 1.5f);
 		m_mvStack.rotate(((System.currentTimeMillis()) / 25.0) % 360, 0.0, 1.0, 1.0);
 		m_mvStack.scale(0.20, 0.20, 0.20);
-		
-		// Pass the model-view matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
-		
-		// Bind the vertex buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[12]);
-		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(0);
-		
-		// Bind the texture buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[13]);
-		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(1);
-		
-		// Set up texture.
-		gl.glActiveTexture(GL_TEXTURE0);
-		gl.glBindTexture(GL_TEXTURE_2D, m_phobosTexture);
-		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-		gl.glGenerateMipmap(GL_TEXTURE_2D);
-		if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-		{
-			float max[] = new float[1];
-			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-		}
-		
-		// Enable depth test and face-culling.
-		gl.glEnable(GL_DEPTH_TEST);
-		gl.glEnable(GL_CULL_FACE);
-		gl.glFrontFace(GL_CCW);
-		
-		// Draw the object.
-		numVerts = m_phobos.getIndices().length;
-		gl.glDrawArrays(GL_TRIANGLES, 0, numVerts);
+		m_phobosBody.setModelMatrix(m_mvStack.peek());
 		m_mvStack.popMatrix();
 		
 		m_mvStack.popMatrix();
 		
-		
 		/* **************** *
 		 * Pentagonal Prism *
 		 * **************** */
 		
-		// Apply transformations to the model-view matrix.
 		m_mvStack.pushMatrix();
 		m_mvStack.translate(0.0f, Math.sin(amt * 2.0) * 8.0f, Math.cos(amt * 2.0) * 8.0f);
 		m_mvStack.pushMatrix();
 		m_mvStack.rotate(((System.currentTimeMillis()) / 40.0) % 360, 0.0, 1.0, 0.0);
 		m_mvStack.scale(0.50, 0.50, 0.50);
+		m_pentagonalPrismBody.setModelMatrix(m_mvStack.peek());
+		m_mvStack.popMatrix();
+		m_mvStack.popMatrix();
 		
-		// Pass the model-view matrix to a uniform in the shader.
-		gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
+		m_mvStack.popMatrix();
+	}
+	
+	/**
+	 * Draws a body into every view in the mask with one instanced draw.
+	 */
+	private void drawBody(GL4 gl, int mLoc, Body body, int viewMask)
+	{
+		// Pass the model matrix to a uniform in the shader; each view applies its own camera.
+		gl.glUniformMatrix4fv(mLoc, 1, false, body.getModelMatrix().getFloatValues(), 0);
+		int instances = m_multiViewPass.setVisibleViews(gl, m_renderingProgram, viewMask);
 		
-		// Bind the vertex buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[18]);
-		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(0);
+		// Bodies that give off light, like the sun, are not lit themselves.
+		gl.glUniform1i(gl.glGetUniformLocation(m_renderingProgram, "emissive"), body.isEmissive() ? 1 : 0);
 		
-		// Bind the texture buffer to a vertex attribute.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[19]);
-		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-		gl.glEnableVertexAttribArray(1);
+		// Bind the vertex buffers to vertex attributes.
+		bindMeshVertices(gl, body.getVBOIndex(), body.getIBOIndex());
 		
 		// Set up texture.
 		gl.glActiveTexture(GL_TEXTURE0);
-		gl.glBindTexture(GL_TEXTURE_2D, m_meTexture);
-		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-		gl.glGenerateMipmap(GL_TEXTURE_2D);
-		if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-		{
-			float max[] = new float[1];
-			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-		}
-		
-		// Enable depth test and face-culling.
-		gl.glEnable(GL_DEPTH_TEST);
-		gl.glEnable(GL_CULL_FACE);
-		gl.glFrontFace(GL_CW);
+		gl.glBindTexture(GL_TEXTURE_2D, body.getTexture());
 		
 		// Draw the object.
-		numVerts = m_pentagonalPrism.getIndices().length;
-		gl.glDrawArrays(GL_TRIANGLES, 0, numVerts);
-		m_mvStack.popMatrix();
-		m_mvStack.popMatrix();
-		
-		m_mvStack.popMatrix();
-		
-		/* ********** *
-		 * World Axes *
-		 * ********** */
-		
-		if(m_drawWorldAxes)
+		gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, m_ibo[body.getIBOIndex()]);
+		gl.glDrawElementsInstanced(GL_TRIANGLES, body.getMesh().getIndexCount(), GL_UNSIGNED_INT, 0, instances);
+	}
+	
+	/**
+	 * Adds a point light to the scene. Lights are binned into clusters every frame, so scenes can hold hundreds of them.
+	 */
+	public void addLight(PointLight light)
+	{
+		m_lights.add(light);
+	}
+	
+	/**
+	 * @return the number of bodies skipped by occlusion and view culling in the last frame, summed over the views
+	 */
+	public int getCulledBodyCount()
+	{
+		int count = 0;
+		for(View view : getActiveViews())
 		{
-			m_mvStack.pushMatrix();
-			
-			// Pass the model-view matrix to a uniform in the shader.
-			gl.glUniformMatrix4fv(mvLoc, 1, false, m_mvStack.peek().getFloatValues(), 0);
-			
-			/* ****** *
-			 * X Axis *
-			 * ****** */
-			
-			// Bind the vertex buffer to a vertex attribute.
-			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[15]);
-			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-			gl.glEnableVertexAttribArray(0);
-			
-			// Texture
-			gl.glActiveTexture(GL_TEXTURE0);
-			gl.glBindTexture(GL_TEXTURE_2D, m_redTexture);
-			gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-			gl.glGenerateMipmap(GL_TEXTURE_2D);
-			if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-			{
-				float max[] = new float[1];
-				gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-				gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-			}
-			
-			// Enable depth test.
-			gl.glEnable(GL_DEPTH_TEST);
-			
-			gl.glDrawArrays(GL_LINES, 0, 2);
-			
-			/* ****** *
-			 * Y Axis *
-			 * ****** */
-			
-			// Bind the vertex buffer to a vertex attribute.
-			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[16]);
-			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-			gl.glEnableVertexAttribArray(0);
-			
-			// Texture
-			gl.glActiveTexture(GL_TEXTURE0);
-			gl.glBindTexture(GL_TEXTURE_2D, m_greenTexture);
-			gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-			gl.glGenerateMipmap(GL_TEXTURE_2D);
-			if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-			{
-				float max[] = new float[1];
-				gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-				gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-			}
-			
-			// Enable depth test.
-			gl.glEnable(GL_DEPTH_TEST);
-			
-			gl.glDrawArrays(GL_LINES, 0, 2);
-			
-			/* ****** *
-			 * Z Axis *
-			 * ****** */
-			
-			// Bind the vertex buffer to a vertex attribute.
-			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[17]);
-			gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-			gl.glEnableVertexAttribArray(0);
-			
-			// Texture
-			gl.glActiveTexture(GL_TEXTURE0);
-			gl.glBindTexture(GL_TEXTURE_2D, m_blueTexture);
-			gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
-			gl.glGenerateMipmap(GL_TEXTURE_2D);
-			if(gl.isExtensionAvailable("GL_EXT_texture_filer_anisotropic"))
-			{
-				float max[] = new float[1];
-				gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
-				gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
-			}
-			
-			// Enable depth test.
-			gl.glEnable(GL_DEPTH_TEST);
-			
-			gl.glDrawArrays(GL_LINES, 0, 2);
-			
-			m_mvStack.popMatrix();
+			count += view.getOcclusionCuller().getCulledCount();
 		}
-		
-		m_mvStack.popMatrix();
+		return count;
+	}
+	
+	/**
+	 * @return the number of bodies drawn in the last frame, summed over the views
+	 */
+	public int getVisibleBodyCount()
+	{
+		int count = 0;
+		for(View view : getActiveViews())
+		{
+			count += view.getOcclusionCuller().getVisibleCount();
+		}
+		return count;
 	}
 	
 	private void updateForward()
@@ -517,8 +558,15 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 	public void init(GLAutoDrawable drawable)
 	{
 		GL4 gl = (GL4) GLContext.getCurrentGL();
-		m_renderingProgram = createShaderProgram("shaders/vert.shader", "shaders/frag.shader");
+		m_renderingProgram = m_programRegistry.register(gl, RENDERING_PROGRAM, VERTEX_SHADER_FILE, FRAGMENT_SHADER_FILE);
+		m_programRegistry.register(gl, TRAIL_PROGRAM, TRAIL_VERTEX_SHADER_FILE, TRAIL_FRAGMENT_SHADER_FILE);
 		setupVertices();
+		m_multiViewPass.init(gl);
+		m_renderTarget.init(gl);
+		m_frameScheduler.init(gl);
+		m_frameCapture.init(gl);
+		m_screenWidth = Math.max(drawable.getSurfaceWidth(), 1);
+		m_screenHeight = Math.max(drawable.getSurfaceHeight(), 1);
 		
 		// Camera Position
 		m_cameraX = 0.0f;
@@ -536,15 +584,65 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 		m_sunLocZ = 0.0f;
 		
 		// Load textures.
-		m_sunTexture = loadTexture(SUN_TEXTURE_FILE).getTextureObject();
-		m_earthTexture = loadTexture(EARTH_TEXTURE_FILE).getTextureObject();
-		m_earthMoonTexture = loadTexture(EARTH_MOON_TEXTURE_FILE).getTextureObject();
-		m_marsTexture = loadTexture(MARS_TEXTURE_FILE).getTextureObject();
-		m_phobosTexture = loadTexture(PHOBOS_TEXTURE_FILE).getTextureObject();
-		m_meTexture = loadTexture(ME_TEXTURE_FILE).getTextureObject();
-		m_redTexture = loadTexture(RED_TEXTURE_FILE).getTextureObject();
-		m_greenTexture = loadTexture(GREEN_TEXTURE_FILE).getTextureObject();
-		m_blueTexture = loadTexture(BLUE_TEXTURE_FILE).getTextureObject();
+		m_sunTexture = m_textureRegistry.load(gl, SUN_TEXTURE_FILE);
+		m_earthTexture = m_textureRegistry.load(gl, EARTH_TEXTURE_FILE);
+		m_earthMoonTexture = m_textureRegistry.load(gl, EARTH_MOON_TEXTURE_FILE);
+		m_marsTexture = m_textureRegistry.load(gl, MARS_TEXTURE_FILE);
+		m_phobosTexture = m_textureRegistry.load(gl, PHOBOS_TEXTURE_FILE);
+		m_meTexture = m_textureRegistry.load(gl, ME_TEXTURE_FILE);
+		m_redTexture = m_textureRegistry.load(gl, RED_TEXTURE_FILE);
+		m_greenTexture = m_textureRegistry.load(gl, GREEN_TEXTURE_FILE);
+		m_blueTexture = m_textureRegistry.load(gl, BLUE_TEXTURE_FILE);
+		
+		// Bodies, in drawing order. The sun and the planets are big enough to hide other bodies.
+		m_sunBody = new Body("Sun", m_sun, 0, 0, m_sunTexture, true, true);
+		m_earthBody = new Body("Earth", m_earth, 0, 0, m_earthTexture, false, true);
+		m_earthMoonBody = new Body("Earth's Moon", m_earthMoon, 0, 0, m_earthMoonTexture, false, false);
+		m_marsBody = new Body("Mars", m_mars, 0, 0, m_marsTexture, false, true);
+		m_phobosBody = new Body("Phobos", m_phobos, 0, 0, m_phobosTexture, false, false);
+		m_pentagonalPrismBody = new Body("Pentagonal Prism", m_pentagonalPrism, 6, 1, m_meTexture, false, false);
+		m_bodies = Arrays.asList(m_sunBody, m_earthBody, m_earthMoonBody, m_marsBody, m_phobosBody, m_pentagonalPrismBody);
+		
+		// Every body but the fixed sun leaves a trail.
+		m_orbitTrails = new OrbitTrails(Arrays.asList(m_earthBody, m_earthMoonBody, m_marsBody, m_phobosBody, m_pentagonalPrismBody));
+		m_orbitTrails.init(gl);
+		
+		// Watch shaders and textures for changes.
+		try
+		{
+			m_resourceWatcher = new ResourceWatcher(WATCHED_DIRECTORIES, this::prepareReload);
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Runs on the resource watcher thread: transcodes changed images right away and returns the GL work for later. Images
+	 * no texture was loaded from are ignored.
+	 */
+	private Consumer<GL4> prepareReload(Path file)
+	{
+		String name = file.getFileName().toString().toLowerCase();
+		if(name.endsWith(".shader"))
+		{
+			return gl -> m_programRegistry.reload(gl, file);
+		}
+		if((name.endsWith(".jpg") || name.endsWith(".png")) && m_textureRegistry.isRegistered(file))
+		{
+			try
+			{
+				KtxTexture data = TextureRegistry.prepare(file);
+				return gl -> m_textureRegistry.update(gl, file, data);
+			}
+			catch(IOException e)
+			{
+				// The file may still be being written; a later change event will retry.
+				e.printStackTrace();
+			}
+		}
+		return null;
 	}
 	
 	private void setupVertices()
@@ -555,116 +653,114 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 		gl.glGenVertexArrays(m_vao.length, m_vao, 0);
 		gl.glBindVertexArray(m_vao[0]);
 		gl.glGenBuffers(m_vbo.length, m_vbo, 0);
+		gl.glGenBuffers(m_ibo.length, m_ibo, 0);
 		
-		// Planets and Moons
-		setupSphereVertices(m_sun, 0);
-		setupSphereVertices(m_earth, 3);
-		setupSphereVertices(m_earthMoon, 6);
-		setupSphereVertices(m_mars, 9);
-		setupSphereVertices(m_phobos, 12);
+		// Planets and Moons: they all use the mesh cache's one icosphere, so it is quantized and uploaded once and shared.
+		setupMeshVertices(m_sun, 0, 0);
 		
 		// World Axes
 		float[] xAxisVertices = {0.0f, 0.0f, 0.0f, 5.0f, 0.0f, 0.0f};
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[15]);
+		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[3]);
 		FloatBuffer xAxisVertBuf = Buffers.newDirectFloatBuffer(xAxisVertices);
 		gl.glBufferData(GL_ARRAY_BUFFER, xAxisVertBuf.limit() * 4, xAxisVertBuf, GL_STATIC_DRAW);
 		
 		float[] yAxisVertices = {0.0f, 0.0f, 0.0f, 0.0f, 5.0f, 0.0f};
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[16]);
+		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[4]);
 		FloatBuffer yAxisVertBuf = Buffers.newDirectFloatBuffer(yAxisVertices);
 		gl.glBufferData(GL_ARRAY_BUFFER, yAxisVertBuf.limit() * 4, yAxisVertBuf, GL_STATIC_DRAW);
 		
 		float[] zAxisVertices = {0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 5.0f};
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[17]);
+		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[5]);
 		FloatBuffer zAxisVertBuf = Buffers.newDirectFloatBuffer(zAxisVertices);
 		gl.glBufferData(GL_ARRAY_BUFFER, zAxisVertBuf.limit() * 4, zAxisVertBuf, GL_STATIC_DRAW);
 		
 		// Pentagonal Prism
-		setupPentagonalPrismVertices(m_pentagonalPrism, 18);
+		setupMeshVertices(m_pentagonalPrism, 6, 1);
 	}
 	
-	private void setupPentagonalPrismVertices(PentagonalPrism prism, int startingVBOIndex)
+	private void setupMeshVertices(Mesh mesh, int startingVBOIndex, int iboIndex)
 	{
 		GL4 gl = (GL4) GLContext.getCurrentGL();
 		
-		// Get vertices and indices.
-		Vertex3D[] vertices = prism.getVertices();
-		int[] indices = prism.getIndices();
+		// Meshes are uploaded indexed, in the vertex and triangle order chosen by the mesh cache's optimizer.
+		float[] pValues = mesh.getPositions();
+		float[] tValues = mesh.getTexCoords();
+		float[] nValues = mesh.getNormals();
+		int[] indices = mesh.getIndices();
 		
-		// Create vertex, texture, and normal buffers.
-		float[] pValues = new float[indices.length * 3];
-		float[] tValues = new float[indices.length * 2];
-		//float[] nValues = new float[indices.length * 3];
-		
-		// Populate the buffers with the proper values.
-		for(int i = 0; i < indices.length; i++)
+		if(USE_COMPACT_VERTICES)
 		{
-			pValues[i * 3] = (float) (vertices[indices[i]]).getX();
-			pValues[i * 3 + 1] = (float) (vertices[indices[i]]).getY();
-			pValues[i * 3 + 2] = (float) (vertices[indices[i]]).getZ();
-			tValues[i * 2] = (float) (vertices[indices[i]]).getS();
-			tValues[i * 2 + 1] = (float) (vertices[indices[i]]).getT();
-			//nValues[i * 3] = (float) (vertices[indices[i]]).getNormalX();
-			//nValues[i * 3 + 1] = (float) (vertices[indices[i]]).getNormalY();
-			//nValues[i * 3 + 2] = (float) (vertices[indices[i]]).getNormalZ();
+			// Bind the interleaved compact vertices with a single vbo entry.
+			QuantizedMesh quantized = VertexQuantizer.quantize(mesh);
+			m_quantizedMeshes[iboIndex] = quantized;
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex]);
+			gl.glBufferData(GL_ARRAY_BUFFER, quantized.getVertices().limit(), quantized.getVertices(), GL_STATIC_DRAW);
+		}
+		else
+		{
+			// Bind vertex buffer with a vbo entry.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex]);
+			FloatBuffer vertBuf = Buffers.newDirectFloatBuffer(pValues);
+			gl.glBufferData(GL_ARRAY_BUFFER, vertBuf.limit() * 4, vertBuf, GL_STATIC_DRAW);
+			
+			// Bind texture buffer with a vbo entry.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex + 1]);
+			FloatBuffer texBuf = Buffers.newDirectFloatBuffer(tValues);
+			gl.glBufferData(GL_ARRAY_BUFFER, texBuf.limit() * 4, texBuf, GL_STATIC_DRAW);
+			
+			// Bind normal buffer with a vbo entry.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex + 2]);
+			FloatBuffer normalBuf = Buffers.newDirectFloatBuffer(nValues);
+			gl.glBufferData(GL_ARRAY_BUFFER, normalBuf.limit() * 4, normalBuf, GL_STATIC_DRAW);
 		}
 		
-		// Bind vertex buffer with a vbo entry.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex]);
-		FloatBuffer vertBuf = Buffers.newDirectFloatBuffer(pValues);
-		gl.glBufferData(GL_ARRAY_BUFFER, vertBuf.limit() * 4, vertBuf, GL_STATIC_DRAW);
-		
-		// Bind texture buffer with a vbo entry.
-		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex + 1]);
-		FloatBuffer texBuf = Buffers.newDirectFloatBuffer(tValues);
-		gl.glBufferData(GL_ARRAY_BUFFER, texBuf.limit() * 4, texBuf, GL_STATIC_DRAW);
-		
-		// Bind normal buffer with a vbo entry.
-		//gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex + 2]);
-		//FloatBuffer normalBuf = Buffers.newDirectFloatBuffer(nValues);
-		//gl.glBufferData(GL_ARRAY_BUFFER, normalBuf.limit() * 4, normalBuf, GL_STATIC_DRAW);
+		// Bind index buffer with an ibo entry.
+		gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, m_ibo[iboIndex]);
+		IntBuffer indexBuf = Buffers.newDirectIntBuffer(indices);
+		gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuf.limit() * 4, indexBuf, GL_STATIC_DRAW);
 	}
 	
-	private void setupSphereVertices(Sphere sphere, int startingVBOIndex)
+	private void bindMeshVertices(GL4 gl, int startingVBOIndex, int iboIndex)
 	{
-		GL4 gl = (GL4) GLContext.getCurrentGL();
-		
-		// Get vertices and indices.
-		Vertex3D[] vertices = sphere.getVertices();
-		int[] indices = sphere.getIndices();
-		
-		// Create vertex, texture, and normal buffers.
-		float[] pValues = new float[indices.length * 3];
-		float[] tValues = new float[indices.length * 2];
-		float[] nValues = new float[indices.length * 3];
-		
-		// Populate the buffers with the proper values.
-		for(int i = 0; i < indices.length; i++)
+		QuantizedMesh quantized = m_quantizedMeshes[iboIndex];
+		if(quantized != null)
 		{
-			pValues[i * 3] = (float) (vertices[indices[i]]).getX();
-			pValues[i * 3 + 1] = (float) (vertices[indices[i]]).getY();
-			pValues[i * 3 + 2] = (float) (vertices[indices[i]]).getZ();
-			tValues[i * 2] = (float) (vertices[indices[i]]).getS();
-			tValues[i * 2 + 1] = (float) (vertices[indices[i]]).getT();
-			nValues[i * 3] = (float) (vertices[indices[i]]).getNormalX();
-			nValues[i * 3 + 1] = (float) (vertices[indices[i]]).getNormalY();
-			nValues[i * 3 + 2] = (float) (vertices[indices[i]]).getNormalZ();
+			// Compact vertices: normalized shorts for position and texture coordinates, packed octahedral normal.
+			gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex]);
+			gl.glVertexAttribPointer(0, 3, GL_SHORT, true, VertexQuantizer.STRIDE, VertexQuantizer.POSITION_OFFSET);
+			gl.glEnableVertexAttribArray(0);
+			gl.glVertexAttribPointer(1, 2, GL_UNSIGNED_SHORT, true, VertexQuantizer.STRIDE, VertexQuantizer.TEX_COORD_OFFSET);
+			gl.glEnableVertexAttribArray(1);
+			gl.glVertexAttribPointer(2, 4, GL_INT_2_10_10_10_REV, true, VertexQuantizer.STRIDE, VertexQuantizer.NORMAL_OFFSET);
+			gl.glEnableVertexAttribArray(2);
+			loadVertexDecodeUniforms(gl, quantized.getPositionScale(), quantized.getPositionBias(), quantized.getTexCoordScale(), quantized.getTexCoordBias(), true);
+			return;
 		}
 		
-		// Bind vertex buffer with a vbo entry.
+		// Bind the vertex buffer to a vertex attribute.
 		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex]);
-		FloatBuffer vertBuf = Buffers.newDirectFloatBuffer(pValues);
-		gl.glBufferData(GL_ARRAY_BUFFER, vertBuf.limit() * 4, vertBuf, GL_STATIC_DRAW);
+		gl.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+		gl.glEnableVertexAttribArray(0);
 		
-		// Bind texture buffer with a vbo entry.
+		// Bind the texture buffer to a vertex attribute.
 		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex + 1]);
-		FloatBuffer texBuf = Buffers.newDirectFloatBuffer(tValues);
-		gl.glBufferData(GL_ARRAY_BUFFER, texBuf.limit() * 4, texBuf, GL_STATIC_DRAW);
+		gl.glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
+		gl.glEnableVertexAttribArray(1);
 		
-		// Bind normal buffer with a vbo entry.
+		// Bind the normal buffer to a vertex attribute.
 		gl.glBindBuffer(GL_ARRAY_BUFFER, m_vbo[startingVBOIndex + 2]);
-		FloatBuffer normalBuf = Buffers.newDirectFloatBuffer(nValues);
-		gl.glBufferData(GL_ARRAY_BUFFER, normalBuf.limit() * 4, normalBuf, GL_STATIC_DRAW);
+		gl.glVertexAttribPointer(2, 3, GL_FLOAT, false, 0, 0);
+		gl.glEnableVertexAttribArray(2);
+		loadVertexDecodeUniforms(gl, UNIT_SCALE, ZERO_BIAS, UNIT_SCALE, ZERO_BIAS, false);
+	}
+	
+	private void loadVertexDecodeUniforms(GL4 gl, float[] posScale, float[] posBias, float[] tcScale, float[] tcBias, boolean octahedralNormals)
+	{
+		gl.glUniform3fv(gl.glGetUniformLocation(m_renderingProgram, "pos_scale"), 1, posScale, 0);
+		gl.glUniform3fv(gl.glGetUniformLocation(m_renderingProgram, "pos_bias"), 1, posBias, 0);
+		gl.glUniform2fv(gl.glGetUniformLocation(m_renderingProgram, "tc_scale"), 1, tcScale, 0);
+		gl.glUniform2fv(gl.glGetUniformLocation(m_renderingProgram, "tc_bias"), 1, tcBias, 0);
+		gl.glUniform1i(gl.glGetUniformLocation(m_renderingProgram, "octahedral_normals"), octahedralNormals ? 1 : 0);
 	}
 	
 	private Matrix3D perspective(float fovy, float aspect, float n, float f)
@@ -690,47 +786,25 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 	
 	public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height)
 	{
+		// The render target follows on the next frame, scaled by the frame scheduler.
+		m_screenWidth = Math.max(width, 1);
+		m_screenHeight = Math.max(height, 1);
 	}
 	
 	public void dispose(GLAutoDrawable drawable)
-	{
-	}
-	
-	private int createShaderProgram(String vertLoc, String fragLoc)
 	{
 		GL4 gl = (GL4) GLContext.getCurrentGL();
-		
-		String vshaderSource[] = GLSLUtils.readShaderSource(vertLoc);
-		String fshaderSource[] = GLSLUtils.readShaderSource(fragLoc);
-		
-		int vShader = gl.glCreateShader(GL_VERTEX_SHADER);
-		int fShader = gl.glCreateShader(GL_FRAGMENT_SHADER);
-		
-		gl.glShaderSource(vShader, vshaderSource.length, vshaderSource, null, 0);
-		gl.glShaderSource(fShader, fshaderSource.length, fshaderSource, null, 0);
-		
-		gl.glCompileShader(vShader);
-		gl.glCompileShader(fShader);
-		
-		int vfprogram = gl.glCreateProgram();
-		gl.glAttachShader(vfprogram, vShader);
-		gl.glAttachShader(vfprogram, fShader);
-		gl.glLinkProgram(vfprogram);
-		return vfprogram;
-	}
-	
-	public Texture loadTexture(String textureFileName)
-	{
-		Texture tex = null;
-		try
+		if(m_resourceWatcher != null)
 		{
-			tex = TextureIO.newTexture(new File(textureFileName), false);
-		}
-		catch(Exception e)
-		{
-			e.printStackTrace();
+			m_resourceWatcher.close();
 		}
-		return tex;
+		m_programRegistry.dispose(gl);
+		m_textureRegistry.dispose(gl);
+		m_multiViewPass.dispose(gl);
+		m_renderTarget.dispose(gl);
+		m_frameScheduler.dispose(gl);
+		m_frameCapture.dispose(gl);
+		m_orbitTrails.dispose(gl);
 	}
 	
 	private Matrix3D lookAt(Point3D eye, Point3D target, Vector3D y)
@@ -824,6 +898,22 @@ public class Project2 extends JFrame implements GLEventListener, KeyListener
 			case KeyEvent.VK_SPACE:
 				m_drawWorldAxes = !m_drawWorldAxes;
 				break;
+			case KeyEvent.VK_P:
+				FrameScheduler.Mode[] modes = FrameScheduler.Mode.values();
+				m_frameScheduler.setMode(modes[(m_frameScheduler.getMode().ordinal() + 1) % modes.length]);
+				break;
+			case KeyEvent.VK_C:
+				m_frameCapture.setCapturing(!m_frameCapture.isCapturing());
+				break;
+			case KeyEvent.VK_V:
+				m_multiView = !m_multiView;
+				break;
+			case KeyEvent.VK_O:
+				m_occlusionCulling = !m_occlusionCulling;
+				break;
+			case KeyEvent.VK_T:
+				m_drawOrbitTrails = !m_drawOrbitTrails;
+				break;
 		}
 	}
 	
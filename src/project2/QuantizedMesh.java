@@ -0,0 +1,65 @@
+package project2;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Mesh} packed by {@link VertexQuantizer}, together with the scale and bias the vertex shader needs to map the
+ * normalized positions and texture coordinates back to their original ranges.
+ */
+public class QuantizedMesh
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final ByteBuffer m_vertices;
+	private final int[] m_indices;
+	private final float[] m_positionScale;
+	private final float[] m_positionBias;
+	private final float[] m_texCoordScale;
+	private final float[] m_texCoordBias;
+	
+	public QuantizedMesh(ByteBuffer vertices, int[] indices, float[] positionScale, float[] positionBias, float[] texCoordScale, float[] texCoordBias)
+	{
+		m_vertices = vertices;
+		m_indices = indices;
+		m_positionScale = positionScale;
+		m_positionBias = positionBias;
+		m_texCoordScale = texCoordScale;
+		m_texCoordBias = texCoordBias;
+	}
+	
+	public ByteBuffer getVertices()
+	{
+		return m_vertices;
+	}
+	
+	public int[] getIndices()
+	{
+		return m_indices;
+	}
+	
+	public float[] getPositionScale()
+	{
+		return m_positionScale;
+	}
+	
+	public float[] getPositionBias()
+	{
+		return m_positionBias;
+	}
+	
+	public float[] getTexCoordScale()
+	{
+		return m_texCoordScale;
+	}
+	
+	public float[] getTexCoordBias()
+	{
+		return m_texCoordBias;
+	}
+	
+	public int getVertexCount()
+	{
+		return m_vertices.limit() / VertexQuantizer.STRIDE;
+	}
+}
\ No newline at end of file
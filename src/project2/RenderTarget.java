@@ -0,0 +1,100 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * An offscreen framebuffer with color and depth renderbuffers that frames are drawn into at a reduced resolution and
+ * then scaled up onto the window.
+ */
+public class RenderTarget
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final int[] m_framebuffer;
+	private final int[] m_renderbuffers;
+	private int m_width, m_height;
+	
+	public RenderTarget()
+	{
+		m_framebuffer = new int[1];
+		m_renderbuffers = new int[2];
+	}
+	
+	public void init(GL4 gl)
+	{
+		gl.glGenFramebuffers(1, m_framebuffer, 0);
+		gl.glGenRenderbuffers(m_renderbuffers.length, m_renderbuffers, 0);
+	}
+	
+	/**
+	 * Reallocates the buffers if the size has changed.
+	 */
+	public void resize(GL4 gl, int width, int height)
+	{
+		width = Math.max(width, 1);
+		height = Math.max(height, 1);
+		if(width == m_width && height == m_height)
+		{
+			return;
+		}
+		m_width = width;
+		m_height = height;
+		
+		gl.glBindRenderbuffer(GL_RENDERBUFFER, m_renderbuffers[0]);
+		gl.glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+		gl.glBindRenderbuffer(GL_RENDERBUFFER, m_renderbuffers[1]);
+		gl.glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, width, height);
+		gl.glBindRenderbuffer(GL_RENDERBUFFER, 0);
+		
+		gl.glBindFramebuffer(GL_FRAMEBUFFER, m_framebuffer[0]);
+		gl.glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, m_renderbuffers[0]);
+		gl.glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, m_renderbuffers[1]);
+		int status = gl.glCheckFramebufferStatus(GL_FRAMEBUFFER);
+		if(status != GL_FRAMEBUFFER_COMPLETE)
+		{
+			System.err.println("Render target " + width + "x" + height + " is incomplete: 0x" + Integer.toHexString(status));
+		}
+		gl.glBindFramebuffer(GL_FRAMEBUFFER, 0);
+	}
+	
+	public int getWidth()
+	{
+		return m_width;
+	}
+	
+	public int getHeight()
+	{
+		return m_height;
+	}
+	
+	/**
+	 * Directs drawing into the render target and covers it with the viewport.
+	 */
+	public void bind(GL4 gl)
+	{
+		gl.glBindFramebuffer(GL_FRAMEBUFFER, m_framebuffer[0]);
+		gl.glViewport(0, 0, m_width, m_height);
+	}
+	
+	/**
+	 * Scales the color buffer up onto the drawable's own framebuffer, which is left bound.
+	 */
+	public void blitToScreen(GL4 gl, int screenWidth, int screenHeight)
+	{
+		int screen = gl.getDefaultDrawFramebuffer();
+		gl.glBindFramebuffer(GL_READ_FRAMEBUFFER, m_framebuffer[0]);
+		gl.glBindFramebuffer(GL_DRAW_FRAMEBUFFER, screen);
+		gl.glBlitFramebuffer(0, 0, m_width, m_height, 0, 0, screenWidth, screenHeight, GL_COLOR_BUFFER_BIT, GL_LINEAR);
+		gl.glBindFramebuffer(GL_FRAMEBUFFER, screen);
+		gl.glViewport(0, 0, screenWidth, screenHeight);
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		gl.glDeleteFramebuffers(1, m_framebuffer, 0);
+		gl.glDeleteRenderbuffers(m_renderbuffers.length, m_renderbuffers, 0);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches resource directories on a background thread and turns file changes into reload tasks for the GL thread.
+ * <p>
+ * The watcher thread does whatever work can happen off the GL thread (for example decoding an image) through a
+ * preparer, and queues the resulting GL task. {@link #processPending} then runs queued tasks on the GL thread until the
+ * per-frame time budget is spent. Change events are gathered until the directories have been quiet for a moment, so the
+ * burst of events an editor produces for one save prepares the file once, and several changes to the same file before
+ * it is processed collapse into one task.
+ */
+public class ResourceWatcher implements Runnable
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	private static final long SETTLE_MILLIS = 100;
+	
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final WatchService m_watchService;
+	private final Map<WatchKey, Path> m_directories;
+	private final Function<Path, Consumer<GL4>> m_preparer;
+	private final Map<Path, Consumer<GL4>> m_pending;
+	private final Queue<Path> m_order;
+	private final Thread m_thread;
+	
+	/**
+	 * @param directories directories to watch (not recursively)
+	 * @param preparer    called on the watcher thread for every changed file; returns the task to run on the GL thread,
+	 *                    or null if the file is not of interest
+	 */
+	public ResourceWatcher(String[] directories, Function<Path, Consumer<GL4>> preparer) throws IOException
+	{
+		m_watchService = FileSystems.getDefault().newWatchService();
+		m_directories = new ConcurrentHashMap<>();
+		m_preparer = preparer;
+		m_pending = new ConcurrentHashMap<>();
+		m_order = new ConcurrentLinkedQueue<>();
+		
+		for(String directory : directories)
+		{
+			Path dir = Paths.get(directory).toAbsolutePath().normalize();
+			m_directories.put(dir.register(m_watchService, ENTRY_CREATE, ENTRY_MODIFY), dir);
+		}
+		
+		m_thread = new Thread(this, "Resource Watcher");
+		m_thread.setDaemon(true);
+		m_thread.start();
+	}
+	
+	public void run()
+	{
+		try
+		{
+			while(true)
+			{
+				Set<Path> changed = new LinkedHashSet<>();
+				for(WatchKey key = m_watchService.take(); key != null; key = m_watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS))
+				{
+					Path dir = m_directories.get(key);
+					for(WatchEvent<?> event : key.pollEvents())
+					{
+						if(dir != null && event.kind() != OVERFLOW)
+						{
+							changed.add(dir.resolve((Path) event.context()));
+						}
+					}
+					key.reset();
+				}
+				
+				for(Path file : changed)
+				{
+					Consumer<GL4> task = m_preparer.apply(file);
+					if(task != null && m_pending.put(file, task) == null)
+					{
+						m_order.add(file);
+					}
+				}
+			}
+		}
+		catch(InterruptedException | ClosedWatchServiceException e)
+		{
+			// Shutting down.
+		}
+	}
+	
+	/**
+	 * Runs queued reload tasks on the GL thread. At least one task runs per call so that reloads always make progress,
+	 * then tasks keep running while the budget lasts.
+	 *
+	 * @return the number of tasks run
+	 */
+	public int processPending(GL4 gl, long budgetNanos)
+	{
+		long start = System.nanoTime();
+		int processed = 0;
+		Path file;
+		while((processed == 0 || System.nanoTime() - start < budgetNanos) && (file = m_order.poll()) != null)
+		{
+			Consumer<GL4> task = m_pending.remove(file);
+			if(task != null)
+			{
+				task.accept(gl);
+				processed++;
+			}
+		}
+		return processed;
+	}
+	
+	public void close()
+	{
+		m_thread.interrupt();
+		try
+		{
+			m_watchService.close();
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
\ No newline at end of file
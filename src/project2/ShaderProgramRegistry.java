@@ -0,0 +1,194 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+import graphicslib3D.GLSLUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Named shader programs together with the source files they were built from, so that a program can be rebuilt when one
+ * of its sources changes. A program whose sources cannot be read, or that fails to compile or link, is discarded and the
+ * previous one stays in use.
+ * <p>
+ * All methods must be called on the GL thread.
+ */
+public class ShaderProgramRegistry
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final Map<String, Integer> m_programs;
+	private final Map<String, String[]> m_sources;
+	
+	public ShaderProgramRegistry()
+	{
+		m_programs = new HashMap<>();
+		m_sources = new HashMap<>();
+	}
+	
+	/**
+	 * Builds a program from a vertex and a fragment shader file and registers it under the given name.
+	 *
+	 * @return the program object, or 0 if it failed to build
+	 */
+	public int register(GL4 gl, String name, String vertLoc, String fragLoc)
+	{
+		m_sources.put(name, new String[] {vertLoc, fragLoc});
+		int program = createShaderProgram(gl, vertLoc, fragLoc);
+		m_programs.put(name, program);
+		return program;
+	}
+	
+	public int getProgram(String name)
+	{
+		Integer program = m_programs.get(name);
+		return program == null ? 0 : program;
+	}
+	
+	/**
+	 * Rebuilds every program that uses the given source file.
+	 *
+	 * @return whether any program was replaced
+	 */
+	public boolean reload(GL4 gl, Path changedFile)
+	{
+		boolean replaced = false;
+		for(Map.Entry<String, String[]> entry : m_sources.entrySet())
+		{
+			String[] files = entry.getValue();
+			if(!sameFile(files[0], changedFile) && !sameFile(files[1], changedFile))
+			{
+				continue;
+			}
+			
+			int program = createShaderProgram(gl, files[0], files[1]);
+			if(program == 0)
+			{
+				System.err.println("Keeping previous version of shader program " + entry.getKey());
+				continue;
+			}
+			
+			int previous = m_programs.put(entry.getKey(), program);
+			if(previous != 0)
+			{
+				gl.glDeleteProgram(previous);
+			}
+			replaced = true;
+			System.out.println("Reloaded shader program " + entry.getKey());
+		}
+		return replaced;
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		for(int program : m_programs.values())
+		{
+			gl.glDeleteProgram(program);
+		}
+		m_programs.clear();
+		m_sources.clear();
+	}
+	
+	private static boolean sameFile(String location, Path file)
+	{
+		return Paths.get(location).toAbsolutePath().normalize().equals(file.toAbsolutePath().normalize());
+	}
+	
+	private static int createShaderProgram(GL4 gl, String vertLoc, String fragLoc)
+	{
+		String vshaderSource[] = readShaderSource(vertLoc);
+		String fshaderSource[] = readShaderSource(fragLoc);
+		if(vshaderSource == null || fshaderSource == null)
+		{
+			return 0;
+		}
+		
+		int vShader = gl.glCreateShader(GL_VERTEX_SHADER);
+		int fShader = gl.glCreateShader(GL_FRAGMENT_SHADER);
+		
+		gl.glShaderSource(vShader, vshaderSource.length, vshaderSource, null, 0);
+		gl.glShaderSource(fShader, fshaderSource.length, fshaderSource, null, 0);
+		
+		gl.glCompileShader(vShader);
+		gl.glCompileShader(fShader);
+		
+		int vfprogram = gl.glCreateProgram();
+		gl.glAttachShader(vfprogram, vShader);
+		gl.glAttachShader(vfprogram, fShader);
+		gl.glLinkProgram(vfprogram);
+		
+		// The shader objects are no longer needed once the program is linked.
+		boolean valid = checkShader(gl, vShader, vertLoc) & checkShader(gl, fShader, fragLoc) & checkProgram(gl, vfprogram);
+		gl.glDeleteShader(vShader);
+		gl.glDeleteShader(fShader);
+		if(!valid)
+		{
+			gl.glDeleteProgram(vfprogram);
+			return 0;
+		}
+		return vfprogram;
+	}
+	
+	/**
+	 * @return the lines of a shader file, or null if it is missing, unreadable or empty, as it can briefly be while an
+	 * editor is saving it
+	 */
+	private static String[] readShaderSource(String location)
+	{
+		String[] source;
+		try
+		{
+			source = GLSLUtils.readShaderSource(location);
+		}
+		catch(RuntimeException e)
+		{
+			System.err.println("Failed to read " + location + ": " + e);
+			return null;
+		}
+		if(source == null || source.length == 0)
+		{
+			System.err.println("Failed to read " + location + ": no source");
+			return null;
+		}
+		return source;
+	}
+	
+	private static boolean checkShader(GL4 gl, int shader, String location)
+	{
+		int[] status = new int[1];
+		gl.glGetShaderiv(shader, GL_COMPILE_STATUS, status, 0);
+		if(status[0] == GL_TRUE)
+		{
+			return true;
+		}
+		
+		int[] length = new int[1];
+		gl.glGetShaderiv(shader, GL_INFO_LOG_LENGTH, length, 0);
+		byte[] log = new byte[Math.max(length[0], 1)];
+		gl.glGetShaderInfoLog(shader, log.length, length, 0, log, 0);
+		System.err.println("Failed to compile " + location + ":\n" + new String(log, 0, length[0]));
+		return false;
+	}
+	
+	private static boolean checkProgram(GL4 gl, int program)
+	{
+		int[] status = new int[1];
+		gl.glGetProgramiv(program, GL_LINK_STATUS, status, 0);
+		if(status[0] == GL_TRUE)
+		{
+			return true;
+		}
+		
+		int[] length = new int[1];
+		gl.glGetProgramiv(program, GL_INFO_LOG_LENGTH, length, 0);
+		byte[] log = new byte[Math.max(length[0], 1)];
+		gl.glGetProgramInfoLog(program, log.length, length, 0, log, 0);
+		System.err.println("Failed to link shader program:\n" + new String(log, 0, length[0]));
+		return false;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package project2;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Transcodes source images into block-compressed KTX files with pre-built mip chains and keeps them in a cache
+ * directory, so that images are only decoded and mipmapped when they change, not on every launch.
+ * <p>
+ * Nothing here touches GL, so transcoding can run on any thread. Running this class transcodes a directory ahead of
+ * time.
+ */
+public class TextureCache
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final String CACHE_DIRECTORY = "cache/textures";
+	private static final String CACHE_EXTENSION = ".ktx";
+	// Bump when transcoding changes so that entries written by older versions are not reused.
+	private static final int CACHE_VERSION = 2;
+	private static final String DEFAULT_SOURCE_DIRECTORY = "textures";
+	
+	private TextureCache()
+	{
+	}
+	
+	/**
+	 * Returns the compressed version of an image, transcoding it first if the cached copy is missing, older than the
+	 * image or unreadable.
+	 */
+	public static KtxTexture load(Path source) throws IOException
+	{
+		Path cached = getCachedFile(source);
+		if(Files.exists(cached) && Files.getLastModifiedTime(cached).compareTo(Files.getLastModifiedTime(source)) >= 0)
+		{
+			try
+			{
+				return KtxTexture.read(cached);
+			}
+			catch(IOException e)
+			{
+				System.err.println("Discarding unreadable cached texture " + cached + ": " + e.getMessage());
+			}
+		}
+		transcode(source, cached);
+		return KtxTexture.read(cached);
+	}
+	
+	/**
+	 * @return where the compressed copy of an image is kept: the image's path relative to the working directory, mirrored
+	 * under the cache directory, or for images outside the working directory a directory named after a hash of its
+	 * absolute path, so that images with the same name in different directories never share an entry
+	 */
+	public static Path getCachedFile(Path source)
+	{
+		Path absolute = source.toAbsolutePath().normalize();
+		Path workingDirectory = Paths.get("").toAbsolutePath().normalize();
+		Path key = absolute.startsWith(workingDirectory) ? workingDirectory.relativize(absolute)
+				: Paths.get(Integer.toHexString(absolute.toString().hashCode()), absolute.getFileName().toString());
+		return Paths.get(CACHE_DIRECTORY).resolve(key.toString() + ".v" + CACHE_VERSION + CACHE_EXTENSION);
+	}
+	
+	/**
+	 * Decodes an image, builds its mip chain down to 1x1 and writes every level BC1-compressed.
+	 */
+	public static void transcode(Path source, Path target) throws IOException
+	{
+		long start = System.nanoTime();
+		BufferedImage image = ImageIO.read(source.toFile());
+		if(image == null)
+		{
+			throw new IOException("No image reader for " + source);
+		}
+		int width = image.getWidth(), height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		
+		// Images decode top row first, but texture coordinates put t = 0 at the bottom, which GL takes as the first row.
+		flipRows(pixels, width, height);
+		
+		List<byte[]> levels = new ArrayList<>();
+		int levelWidth = width, levelHeight = height;
+		while(true)
+		{
+			levels.add(TextureCompressor.compress(pixels, levelWidth, levelHeight));
+			if(levelWidth == 1 && levelHeight == 1)
+			{
+				break;
+			}
+			pixels = TextureCompressor.downsample(pixels, levelWidth, levelHeight);
+			levelWidth = Math.max(levelWidth / 2, 1);
+			levelHeight = Math.max(levelHeight / 2, 1);
+		}
+		
+		KtxTexture.write(target, GL_COMPRESSED_RGB_S3TC_DXT1_EXT, GL_RGB, width, height, levels);
+		System.out.printf("Transcoded %s (%dx%d, %d levels) in %.1f ms%n", source.getFileName(), width, height, levels.size(),
+				(System.nanoTime() - start) / 1.0e6);
+	}
+	
+	private static void flipRows(int[] pixels, int width, int height)
+	{
+		int[] row = new int[width];
+		for(int top = 0, bottom = height - 1; top < bottom; top++, bottom--)
+		{
+			System.arraycopy(pixels, top * width, row, 0, width);
+			System.arraycopy(pixels, bottom * width, pixels, top * width, width);
+			System.arraycopy(row, 0, pixels, bottom * width, width);
+		}
+	}
+	
+	/**
+	 * Transcodes the images given on the command line, or every image in the textures directory.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		List<Path> sources = new ArrayList<>();
+		if(args.length > 0)
+		{
+			for(String arg : args)
+			{
+				sources.add(Paths.get(arg));
+			}
+		}
+		else
+		{
+			try(DirectoryStream<Path> directory = Files.newDirectoryStream(Paths.get(DEFAULT_SOURCE_DIRECTORY), "*.{jpg,png}"))
+			{
+				directory.forEach(sources::add);
+			}
+		}
+		
+		for(Path source : sources)
+		{
+			transcode(source, getCachedFile(source));
+			KtxTexture texture = KtxTexture.read(getCachedFile(source));
+			long uncompressed = 0;
+			int width = texture.getWidth(), height = texture.getHeight();
+			for(int level = 0; level < texture.getLevelCount(); level++)
+			{
+				uncompressed += 4L * width * height;
+				width = Math.max(width / 2, 1);
+				height = Math.max(height / 2, 1);
+			}
+			System.out.printf("  %d bytes compressed, %d bytes as RGBA8 (%.1fx smaller)%n", texture.getByteCount(), uncompressed,
+					(double) uncompressed / texture.getByteCount());
+		}
+	}
+}
\ No newline at end of file
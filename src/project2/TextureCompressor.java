@@ -0,0 +1,187 @@
+package project2;
+
+/**
+ * Builds mip chains and compresses them to BC1 (DXT1), the block format every desktop GL driver samples natively.
+ * <p>
+ * BC1 stores each 4x4 block of texels in 8 bytes: two RGB565 end points and a 2-bit index per texel into the four
+ * colors interpolated between them, 1/8 of the size of RGBA8. End points come from the block's bounding box, inset
+ * slightly so that outliers do not waste the range. This is not the best possible encoder, but it is fast enough to run
+ * on first launch.
+ */
+public class TextureCompressor
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final int BLOCK_SIZE = 4;
+	public static final int BYTES_PER_BLOCK = 8;
+	private static final int INSET_SHIFT = 4;
+	
+	private TextureCompressor()
+	{
+	}
+	
+	/**
+	 * @return the size in bytes of a BC1 image of the given dimensions
+	 */
+	public static int compressedSize(int width, int height)
+	{
+		return blocks(width) * blocks(height) * BYTES_PER_BLOCK;
+	}
+	
+	/**
+	 * Halves an image with a box filter. Odd dimensions repeat their last row or column.
+	 *
+	 * @param pixels packed 0xRRGGBB pixels, in the row order they are uploaded (t = 0 first)
+	 */
+	public static int[] downsample(int[] pixels, int width, int height)
+	{
+		int halfWidth = Math.max(width / 2, 1);
+		int halfHeight = Math.max(height / 2, 1);
+		int[] result = new int[halfWidth * halfHeight];
+		for(int y = 0; y < halfHeight; y++)
+		{
+			int y0 = Math.min(2 * y, height - 1);
+			int y1 = Math.min(2 * y + 1, height - 1);
+			for(int x = 0; x < halfWidth; x++)
+			{
+				int x0 = Math.min(2 * x, width - 1);
+				int x1 = Math.min(2 * x + 1, width - 1);
+				int a = pixels[y0 * width + x0], b = pixels[y0 * width + x1];
+				int c = pixels[y1 * width + x0], d = pixels[y1 * width + x1];
+				int red = (channel(a, 16) + channel(b, 16) + channel(c, 16) + channel(d, 16) + 2) >> 2;
+				int green = (channel(a, 8) + channel(b, 8) + channel(c, 8) + channel(d, 8) + 2) >> 2;
+				int blue = (channel(a, 0) + channel(b, 0) + channel(c, 0) + channel(d, 0) + 2) >> 2;
+				result[y * halfWidth + x] = (red << 16) | (green << 8) | blue;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Compresses an image to BC1. Partial blocks at the right and bottom edges repeat the edge texels.
+	 *
+	 * @param pixels packed 0xRRGGBB pixels, in the row order they are uploaded (t = 0 first)
+	 */
+	public static byte[] compress(int[] pixels, int width, int height)
+	{
+		byte[] result = new byte[compressedSize(width, height)];
+		int[] block = new int[BLOCK_SIZE * BLOCK_SIZE];
+		int offset = 0;
+		for(int by = 0; by < blocks(height); by++)
+		{
+			for(int bx = 0; bx < blocks(width); bx++)
+			{
+				for(int i = 0; i < block.length; i++)
+				{
+					int x = Math.min(bx * BLOCK_SIZE + i % BLOCK_SIZE, width - 1);
+					int y = Math.min(by * BLOCK_SIZE + i / BLOCK_SIZE, height - 1);
+					block[i] = pixels[y * width + x];
+				}
+				compressBlock(block, result, offset);
+				offset += BYTES_PER_BLOCK;
+			}
+		}
+		return result;
+	}
+	
+	private static void compressBlock(int[] block, byte[] out, int offset)
+	{
+		int[] min = {255, 255, 255};
+		int[] max = {0, 0, 0};
+		for(int pixel : block)
+		{
+			for(int k = 0; k < 3; k++)
+			{
+				int value = channel(pixel, 16 - 8 * k);
+				min[k] = Math.min(min[k], value);
+				max[k] = Math.max(max[k], value);
+			}
+		}
+		for(int k = 0; k < 3; k++)
+		{
+			int inset = (max[k] - min[k]) >> INSET_SHIFT;
+			min[k] += inset;
+			max[k] -= inset;
+		}
+		
+		int color0 = toRGB565(max);
+		int color1 = toRGB565(min);
+		int indices = 0;
+		if(color0 != color1)
+		{
+			// The first end point must be the larger one to select four-color mode.
+			if(color0 < color1)
+			{
+				int swap = color0;
+				color0 = color1;
+				color1 = swap;
+			}
+			int[][] palette = new int[4][];
+			palette[0] = fromRGB565(color0);
+			palette[1] = fromRGB565(color1);
+			palette[2] = new int[3];
+			palette[3] = new int[3];
+			for(int k = 0; k < 3; k++)
+			{
+				palette[2][k] = (2 * palette[0][k] + palette[1][k] + 1) / 3;
+				palette[3][k] = (palette[0][k] + 2 * palette[1][k] + 1) / 3;
+			}
+			for(int i = 0; i < block.length; i++)
+			{
+				indices |= nearest(palette, block[i]) << (2 * i);
+			}
+		}
+		
+		out[offset] = (byte) color0;
+		out[offset + 1] = (byte) (color0 >> 8);
+		out[offset + 2] = (byte) color1;
+		out[offset + 3] = (byte) (color1 >> 8);
+		out[offset + 4] = (byte) indices;
+		out[offset + 5] = (byte) (indices >> 8);
+		out[offset + 6] = (byte) (indices >> 16);
+		out[offset + 7] = (byte) (indices >> 24);
+	}
+	
+	private static int nearest(int[][] palette, int pixel)
+	{
+		int best = 0;
+		int bestDistance = Integer.MAX_VALUE;
+		for(int p = 0; p < palette.length; p++)
+		{
+			int distance = 0;
+			for(int k = 0; k < 3; k++)
+			{
+				int d = channel(pixel, 16 - 8 * k) - palette[p][k];
+				distance += d * d;
+			}
+			if(distance < bestDistance)
+			{
+				bestDistance = distance;
+				best = p;
+			}
+		}
+		return best;
+	}
+	
+	private static int toRGB565(int[] rgb)
+	{
+		return ((rgb[0] * 31 + 127) / 255 << 11) | ((rgb[1] * 63 + 127) / 255 << 5) | ((rgb[2] * 31 + 127) / 255);
+	}
+	
+	private static int[] fromRGB565(int color)
+	{
+		int red = (color >> 11) & 31, green = (color >> 5) & 63, blue = color & 31;
+		return new int[] {(red << 3) | (red >> 2), (green << 2) | (green >> 4), (blue << 3) | (blue >> 2)};
+	}
+	
+	private static int channel(int pixel, int shift)
+	{
+		return (pixel >> shift) & 0xFF;
+	}
+	
+	private static int blocks(int size)
+	{
+		return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+	}
+}
\ No newline at end of file
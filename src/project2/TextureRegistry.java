@@ -0,0 +1,115 @@
+package project2;
+
+import com.jogamp.opengl.GL4;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jogamp.opengl.GL4.*;
+
+/**
+ * Textures loaded from image files, keyed by file, so a changed file can be re-uploaded into the same texture object.
+ * <p>
+ * Images are uploaded block-compressed with their mip chain from the {@link TextureCache}, so a warm cache needs no image
+ * decoding or mipmap generation. Preparing an image ({@link #prepare}) and checking whether a file is registered
+ * ({@link #isRegistered}) may happen on any thread; everything else must be called on the GL thread.
+ */
+public class TextureRegistry
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final Map<Path, Integer> m_textures;
+	
+	public TextureRegistry()
+	{
+		m_textures = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Loads a texture from a file and registers it.
+	 *
+	 * @return the texture object name, which stays the same across reloads, or 0 if the file could not be loaded
+	 */
+	public int load(GL4 gl, String textureFileName)
+	{
+		KtxTexture data;
+		try
+		{
+			data = TextureCache.load(Paths.get(textureFileName));
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+			return 0;
+		}
+		
+		int[] texture = new int[1];
+		gl.glGenTextures(1, texture, 0);
+		gl.glBindTexture(GL_TEXTURE_2D, texture[0]);
+		data.upload(gl);
+		
+		// Sampling state belongs to the texture object, so it is set once here rather than every time it is bound.
+		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+		// Icosphere seam triangles carry s past 1, so s has to repeat.
+		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+		gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+		if(gl.isExtensionAvailable("GL_EXT_texture_filter_anisotropic"))
+		{
+			float max[] = new float[1];
+			gl.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
+			gl.glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, max[0]);
+		}
+		
+		m_textures.put(key(textureFileName), texture[0]);
+		return texture[0];
+	}
+	
+	/**
+	 * @return whether the file backs a registered texture, so that a change to it needs preparing
+	 */
+	public boolean isRegistered(Path file)
+	{
+		return m_textures.containsKey(file.toAbsolutePath().normalize());
+	}
+	
+	/**
+	 * Brings the cached compressed copy of an image up to date without touching GL, so it can run off the GL thread.
+	 */
+	public static KtxTexture prepare(Path file) throws IOException
+	{
+		return TextureCache.load(file);
+	}
+	
+	/**
+	 * Replaces the contents of a registered texture with a freshly prepared image.
+	 */
+	public void update(GL4 gl, Path file, KtxTexture data)
+	{
+		Integer texture = m_textures.get(file.toAbsolutePath().normalize());
+		if(texture != null)
+		{
+			gl.glBindTexture(GL_TEXTURE_2D, texture);
+			data.upload(gl);
+			System.out.println("Reloaded texture " + file.getFileName());
+		}
+	}
+	
+	public void dispose(GL4 gl)
+	{
+		for(int texture : m_textures.values())
+		{
+			gl.glDeleteTextures(1, new int[] {texture}, 0);
+		}
+		m_textures.clear();
+	}
+	
+	private static Path key(String textureFileName)
+	{
+		return Paths.get(textureFileName).toAbsolutePath().normalize();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package project2;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Packs a {@link Mesh} into a compact interleaved vertex format of {@link #STRIDE} bytes per vertex:
+ * <ul>
+ * <li>position: 3 normalized signed shorts (plus one of padding), relative to the mesh bounds</li>
+ * <li>texture coordinates: 2 normalized unsigned shorts, relative to the texture coordinate bounds</li>
+ * <li>normal: octahedral encoding in the x and y fields of a {@code GL_INT_2_10_10_10_REV}, with the tangent
+ * handedness in w</li>
+ * </ul>
+ * The vertex shader maps positions and texture coordinates back with a per-mesh scale and bias and decodes the
+ * octahedral normal. Compared with separate float buffers for position, texture coordinates, normal and tangent (48
+ * bytes per vertex) this is a third of the size.
+ */
+public final class VertexQuantizer
+{
+	/* ********* *
+	 * Constants *
+	 * ********* */
+	public static final int STRIDE = 16;
+	public static final int POSITION_OFFSET = 0;
+	public static final int TEX_COORD_OFFSET = 8;
+	public static final int NORMAL_OFFSET = 12;
+	private static final int SNORM16_MAX = 32767;
+	private static final int UNORM16_MAX = 65535;
+	private static final int SNORM10_MAX = 511;
+	
+	private VertexQuantizer()
+	{
+	}
+	
+	public static QuantizedMesh quantize(Mesh mesh)
+	{
+		float[] positions = mesh.getPositions();
+		float[] texCoords = mesh.getTexCoords();
+		float[] normals = mesh.getNormals();
+		float[] tangents = mesh.getTangents();
+		int vertexCount = mesh.getVertexCount();
+		
+		// Positions map [-1, 1] onto the bounding box, texture coordinates map [0, 1] onto their own bounds.
+		float[] positionScale = new float[3];
+		float[] positionBias = new float[3];
+		for(int k = 0; k < 3; k++)
+		{
+			float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+			for(int v = 0; v < vertexCount; v++)
+			{
+				min = Math.min(min, positions[v * 3 + k]);
+				max = Math.max(max, positions[v * 3 + k]);
+			}
+			positionBias[k] = vertexCount == 0 ? 0.0f : (min + max) / 2;
+			positionScale[k] = vertexCount == 0 || max == min ? 1.0f : (max - min) / 2;
+		}
+		float[] texCoordScale = new float[2];
+		float[] texCoordBias = new float[2];
+		for(int k = 0; k < 2; k++)
+		{
+			float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+			for(int v = 0; v < vertexCount; v++)
+			{
+				min = Math.min(min, texCoords[v * 2 + k]);
+				max = Math.max(max, texCoords[v * 2 + k]);
+			}
+			texCoordBias[k] = vertexCount == 0 ? 0.0f : min;
+			texCoordScale[k] = vertexCount == 0 || max == min ? 1.0f : max - min;
+		}
+		
+		ByteBuffer vertices = ByteBuffer.allocateDirect(vertexCount * STRIDE).order(ByteOrder.nativeOrder());
+		float[] octahedral = new float[2];
+		for(int v = 0; v < vertexCount; v++)
+		{
+			for(int k = 0; k < 3; k++)
+			{
+				vertices.putShort((short) encodeSnorm((positions[v * 3 + k] - positionBias[k]) / positionScale[k], SNORM16_MAX));
+			}
+			vertices.putShort((short) 0);
+			for(int k = 0; k < 2; k++)
+			{
+				vertices.putShort((short) encodeUnorm((texCoords[v * 2 + k] - texCoordBias[k]) / texCoordScale[k], UNORM16_MAX));
+			}
+			encodeOctahedral(normals[v * 3], normals[v * 3 + 1], normals[v * 3 + 2], octahedral);
+			vertices.putInt(packInt2101010(octahedral[0], octahedral[1], 0.0f, tangents[v * 4 + 3]));
+		}
+		vertices.flip();
+		
+		return new QuantizedMesh(vertices, mesh.getIndices(), positionScale, positionBias, texCoordScale, texCoordBias);
+	}
+	
+	/**
+	 * Returns the largest reconstruction error of each attribute after a round trip through the compact format:
+	 * position distance, texture coordinate distance and normal angle in degrees.
+	 */
+	public static double[] measureError(Mesh mesh, QuantizedMesh quantized)
+	{
+		ByteBuffer vertices = quantized.getVertices().duplicate().order(ByteOrder.nativeOrder());
+		float[] positionScale = quantized.getPositionScale(), positionBias = quantized.getPositionBias();
+		float[] texCoordScale = quantized.getTexCoordScale(), texCoordBias = quantized.getTexCoordBias();
+		float[] normal = new float[3];
+		double[] maxError = new double[3];
+		
+		for(int v = 0; v < mesh.getVertexCount(); v++)
+		{
+			int base = v * STRIDE;
+			double positionError = 0.0;
+			for(int k = 0; k < 3; k++)
+			{
+				double decoded = decodeSnorm(vertices.getShort(base + POSITION_OFFSET + k * 2), SNORM16_MAX) * positionScale[k] + positionBias[k];
+				positionError += (decoded - mesh.getPositions()[v * 3 + k]) * (decoded - mesh.getPositions()[v * 3 + k]);
+			}
+			double texCoordError = 0.0;
+			for(int k = 0; k < 2; k++)
+			{
+				double decoded = (vertices.getShort(base + TEX_COORD_OFFSET + k * 2) & 0xFFFF) / (double) UNORM16_MAX * texCoordScale[k] + texCoordBias[k];
+				texCoordError += (decoded - mesh.getTexCoords()[v * 2 + k]) * (decoded - mesh.getTexCoords()[v * 2 + k]);
+			}
+			int packed = vertices.getInt(base + NORMAL_OFFSET);
+			decodeOctahedral(decodeSnorm(signExtend(packed, 10), SNORM10_MAX), decodeSnorm(signExtend(packed >> 10, 10), SNORM10_MAX), normal);
+			double dot = normal[0] * mesh.getNormals()[v * 3] + normal[1] * mesh.getNormals()[v * 3 + 1] + normal[2] * mesh.getNormals()[v * 3 + 2];
+			
+			maxError[0] = Math.max(maxError[0], Math.sqrt(positionError));
+			maxError[1] = Math.max(maxError[1], Math.sqrt(texCoordError));
+			maxError[2] = Math.max(maxError[2], Math.toDegrees(Math.acos(Math.min(1.0, dot))));
+		}
+		return maxError;
+	}
+	
+	/**
+	 * Returns the largest error {@link #measureError} can report for a correctly quantized mesh, in the same order.
+	 * Positions and texture coordinates are off by at most half a quantization step of their bounds on every axis, plus
+	 * the float rounding of the stored value and of the encoding.
+	 * Rounding each 10-bit octahedral coordinate by at most h moves the unnormalized decoded normal by at most sqrt(6) h,
+	 * and that point is never closer to the origin than 1 / sqrt(3), so the normal turns by at most 3 sqrt(2) h.
+	 */
+	public static double[] getErrorBounds(QuantizedMesh quantized)
+	{
+		float[] positionScale = quantized.getPositionScale(), positionBias = quantized.getPositionBias();
+		float[] texCoordScale = quantized.getTexCoordScale(), texCoordBias = quantized.getTexCoordBias();
+		double positionError = 0.0;
+		for(int k = 0; k < 3; k++)
+		{
+			double halfStep = positionScale[k] / SNORM16_MAX / 2 + 2 * Math.ulp(Math.abs(positionBias[k]) + positionScale[k]);
+			positionError += halfStep * halfStep;
+		}
+		double texCoordError = 0.0;
+		for(int k = 0; k < 2; k++)
+		{
+			double halfStep = texCoordScale[k] / UNORM16_MAX / 2 + 2 * Math.ulp(Math.abs(texCoordBias[k]) + texCoordScale[k]);
+			texCoordError += halfStep * halfStep;
+		}
+		double normalError = 3 * Math.sqrt(2) * 0.5 / SNORM10_MAX;
+		return new double[] {Math.sqrt(positionError), Math.sqrt(texCoordError), Math.toDegrees(normalError)};
+	}
+	
+	/**
+	 * Octahedral normal encoding (Cigolle et al., "A Survey of Efficient Representations for Independent Unit
+	 * Vectors", 2014). Projects the unit vector onto the octahedron and unfolds the lower half into the corners.
+	 */
+	static void encodeOctahedral(float x, float y, float z, float[] out)
+	{
+		float sum = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		float u = x / sum, v = y / sum;
+		if(z < 0.0f)
+		{
+			float foldedU = (1.0f - Math.abs(v)) * signNotZero(u);
+			float foldedV = (1.0f - Math.abs(u)) * signNotZero(v);
+			u = foldedU;
+			v = foldedV;
+		}
+		out[0] = u;
+		out[1] = v;
+	}
+	
+	static void decodeOctahedral(float u, float v, float[] out)
+	{
+		float z = 1.0f - Math.abs(u) - Math.abs(v);
+		if(z < 0.0f)
+		{
+			float unfoldedU = (1.0f - Math.abs(v)) * signNotZero(u);
+			float unfoldedV = (1.0f - Math.abs(u)) * signNotZero(v);
+			u = unfoldedU;
+			v = unfoldedV;
+		}
+		float length = (float) Math.sqrt(u * u + v * v + z * z);
+		out[0] = u / length;
+		out[1] = v / length;
+		out[2] = z / length;
+	}
+	
+	/**
+	 * Packs four values in [-1, 1] the way {@code GL_INT_2_10_10_10_REV} expects them: x in the lowest 10 bits, then y,
+	 * z and a 2-bit w in the top bits.
+	 */
+	static int packInt2101010(float x, float y, float z, float w)
+	{
+		return (encodeSnorm(x, SNORM10_MAX) & 0x3FF)
+				| (encodeSnorm(y, SNORM10_MAX) & 0x3FF) << 10
+				| (encodeSnorm(z, SNORM10_MAX) & 0x3FF) << 20
+				| (encodeSnorm(w, 1) & 0x3) << 30;
+	}
+	
+	private static int encodeSnorm(float value, int max)
+	{
+		return Math.round(Math.max(-1.0f, Math.min(1.0f, value)) * max);
+	}
+	
+	private static int encodeUnorm(float value, int max)
+	{
+		return Math.round(Math.max(0.0f, Math.min(1.0f, value)) * max);
+	}
+	
+	private static float decodeSnorm(int value, int max)
+	{
+		return Math.max(-1.0f, (float) value / max);
+	}
+	
+	private static int signExtend(int value, int bits)
+	{
+		return (value << (32 - bits)) >> (32 - bits);
+	}
+	
+	private static float signNotZero(float value)
+	{
+		return value >= 0.0f ? 1.0f : -1.0f;
+	}
+}
\ No newline at end of file
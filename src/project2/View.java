@@ -0,0 +1,73 @@
+package project2;
+
+import graphicslib3D.Matrix3D;
+
+import java.util.function.Supplier;
+
+/**
+ * One camera's rectangle of the window. Everything uploaded (meshes, textures, the light list) and the simulation are
+ * shared by all views, and all views are drawn together by a {@link MultiViewPass}; a view only owns what depends on
+ * its camera: the occlusion culler and the light cluster grid.
+ */
+public class View
+{
+	/* **************** *
+	 * Member Variables *
+	 * **************** */
+	private final String m_name;
+	private final float m_left, m_bottom, m_width, m_height;
+	private final Supplier<Matrix3D> m_camera;
+	private final OcclusionCuller m_occlusionCuller;
+	private final ClusteredLighting m_lighting;
+	
+	/**
+	 * @param left   left edge of the viewport as a fraction of the window width
+	 * @param bottom bottom edge of the viewport as a fraction of the window height
+	 * @param width  width of the viewport as a fraction of the window width
+	 * @param height height of the viewport as a fraction of the window height
+	 * @param camera computes the view matrix for the current frame
+	 */
+	public View(String name, float left, float bottom, float width, float height, Supplier<Matrix3D> camera)
+	{
+		m_name = name;
+		m_left = left;
+		m_bottom = bottom;
+		m_width = width;
+		m_height = height;
+		m_camera = camera;
+		m_occlusionCuller = new OcclusionCuller();
+		m_lighting = new ClusteredLighting();
+	}
+	
+	public String getName()
+	{
+		return m_name;
+	}
+	
+	public Matrix3D getViewMatrix()
+	{
+		return m_camera.get();
+	}
+	
+	/**
+	 * @return the viewport as x, y, width and height in pixels of a target of the given size
+	 */
+	public int[] getViewport(int targetWidth, int targetHeight)
+	{
+		int x = Math.round(m_left * targetWidth);
+		int y = Math.round(m_bottom * targetHeight);
+		int width = Math.max(Math.round((m_left + m_width) * targetWidth) - x, 1);
+		int height = Math.max(Math.round((m_bottom + m_height) * targetHeight) - y, 1);
+		return new int[] {x, y, width, height};
+	}
+	
+	public OcclusionCuller getOcclusionCuller()
+	{
+		return m_occlusionCuller;
+	}
+	
+	public ClusteredLighting getLighting()
+	{
+		return m_lighting;
+	}
+}
\ No newline at end of file